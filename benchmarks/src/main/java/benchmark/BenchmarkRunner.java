@@ -0,0 +1,40 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result reports
+ * bytes allocated per operation alongside its time, and writes the results to
+ * jmh-result.json for comparing one release against the next.
+ * <p>
+ * Arguments are regular expressions selecting which benchmarks to run; with no
+ * arguments every benchmark runs.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks-test-dependencies.jar
+ * java -jar benchmarks/target/benchmarks-test-dependencies.jar ChessGame
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .forks(1)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json");
+        for (String include : args) {
+            options.include(include);
+        }
+        new Runner(options.build()).run();
+    }
+}
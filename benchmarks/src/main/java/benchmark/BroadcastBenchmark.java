@@ -0,0 +1,81 @@
+package benchmark;
+
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.openjdk.jmh.annotations.*;
+import server.websocket.ConnectionManager;
+import websocket.commands.ConnectCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.Notification;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionManager.broadcast to every connection watching one game. Sessions are
+ * stubs that count the characters they are asked to send and complete each
+ * asynchronous write at once, so the numbers cover the server's own
+ * serialization, queueing and fan-out without any network I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadcastBenchmark {
+
+    private static final Integer GAME_ID = 1;
+
+    @Param({"2", "10", "100"})
+    public int connections;
+
+    private ConnectionManager manager;
+    private LoadGameMessage loadGame;
+    private Notification notification;
+    private long charactersSent;
+
+    @Setup
+    public void setup() {
+        manager = new ConnectionManager();
+        for (int i = 0; i < connections; i++) {
+            ConnectCommand command = new ConnectCommand(UserGameCommand.CommandType.CONNECT, "token" + i, GAME_ID);
+            manager.add(command, stubSession());
+        }
+        loadGame = new LoadGameMessage(new GameData(GAME_ID, "white", "black", "benchmark", Positions.middlegame()));
+        notification = new Notification("white moved e2 to e4");
+    }
+
+    @Benchmark
+    public long broadcastLoadGame() {
+        manager.broadcast(GAME_ID, null, loadGame);
+        return charactersSent;
+    }
+
+    @Benchmark
+    public long broadcastNotification() {
+        manager.broadcast(GAME_ID, "token0", notification);
+        return charactersSent;
+    }
+
+    private Session stubSession() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        charactersSent += ((String) args[0]).length();
+                    }
+                    if (args != null && args.length == 2 && args[1] instanceof WriteCallback callback) {
+                        callback.writeSuccess();
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,108 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and game-state checks on ChessGame
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChessGameBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    private ChessGame game;
+    private ChessGame checkmate;
+    private ChessGame stalemate;
+    private List<ChessPosition> ownPieces;
+    private ChessMove move;
+    private final MoveList moveList = new MoveList();
+
+    @Setup
+    public void setup() {
+        game = position.equals("start") ? Positions.start() : Positions.middlegame();
+        checkmate = Positions.checkmate();
+        stalemate = Positions.stalemate();
+
+        ownPieces = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    ownPieces.add(square);
+                }
+            }
+        }
+        move = Positions.move(position.equals("start") ? "e2e4" : "c4b5");
+    }
+
+    /**
+     * All legal moves for the side to move, one validMoves call per piece
+     */
+    @Benchmark
+    public void validMoves(Blackhole bh) {
+        for (ChessPosition square : ownPieces) {
+            bh.consume(game.validMoves(square));
+        }
+    }
+
+    /**
+     * All legal moves for the side to move, generated into a reused move list
+     */
+    @Benchmark
+    public int legalMoves() {
+        moveList.clear();
+        game.legalMoves(moveList);
+        return moveList.size();
+    }
+
+    /**
+     * A validated move followed by taking it back, so every invocation starts from the same position
+     */
+    @Benchmark
+    public long makeMove() throws InvalidMoveException {
+        game.makeMove(move);
+        long key = game.getZobristKey();
+        game.unmakeMove();
+        return key;
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean hasLegalMove() {
+        return game.hasLegalMove(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return checkmate.isInCheckmate(checkmate.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemateStalemated() {
+        return stalemate.isInStalemate(stalemate.getTeamTurn());
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.MemoryAuthAccess;
+import dataaccess.MemoryGameAccess;
+import dataaccess.MemoryUserAccess;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory DAOs, filled with a number of users, sessions and games
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DaoBenchmark {
+
+    @Param({"10", "1000"})
+    public int entries;
+
+    private MemoryAuthAccess authAccess;
+    private MemoryUserAccess userAccess;
+    private MemoryGameAccess gameAccess;
+    private String lastToken;
+    private String lastUsername;
+    private GameData lastGame;
+    private AuthData extraAuth;
+    private int next;
+
+    @Setup
+    public void setup() {
+        authAccess = new MemoryAuthAccess();
+        userAccess = new MemoryUserAccess();
+        gameAccess = new MemoryGameAccess();
+        for (int i = 0; i < entries; i++) {
+            String username = "user" + i;
+            authAccess.addAuth(new AuthData(username, "token" + i, null));
+            userAccess.addUser(new UserData(username, "password" + i, username + "@example.com"));
+            gameAccess.addGame(new GameData(i, null, null, "game" + i, new ChessGame()));
+        }
+        lastToken = "token" + (entries - 1);
+        lastUsername = "user" + (entries - 1);
+        lastGame = gameAccess.getGame(entries - 1);
+        extraAuth = new AuthData("extra", "extra-token", null);
+    }
+
+    @Benchmark
+    public AuthData getAuth() {
+        return authAccess.getAuth(lastToken);
+    }
+
+    @Benchmark
+    public String addAndDeleteAuth() {
+        authAccess.addAuth(extraAuth);
+        return authAccess.deleteAuth(extraAuth.authToken());
+    }
+
+    @Benchmark
+    public UserData getUser() {
+        return userAccess.getUser(lastUsername, "password" + (entries - 1));
+    }
+
+    @Benchmark
+    public UserData getUserByUsername() {
+        return userAccess.getUserByUsername(lastUsername);
+    }
+
+    @Benchmark
+    public int listGames() {
+        int count = 0;
+        for (GameData game : gameAccess.getAllGames()) {
+            if (game.whiteUsername() == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public GameData getGame() {
+        return gameAccess.getGame(lastGame.gameID());
+    }
+
+    /**
+     * Joins the last game as white and frees the seat again so the next call can join too
+     */
+    @Benchmark
+    public String joinGame() {
+        String result = gameAccess.updateGame("WHITE", lastGame.gameID(), "user" + (next++ % entries));
+        lastGame.setWhiteUsername(null);
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+
+/**
+ * Fixed positions shared by the benchmarks, built through the public game API
+ * so they stay valid as the internals change.
+ */
+final class Positions {
+
+    private static final String[] MIDDLEGAME_MOVES = {
+            "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "c2c3", "g8f6", "d2d3", "d7d6", "b1d2", "c8g4"
+    };
+
+    private static final String[] FOOLS_MATE_MOVES = {"f2f3", "e7e5", "g2g4", "d8h4"};
+
+    private Positions() {
+    }
+
+    /**
+     * @return a new game in the starting position
+     */
+    static ChessGame start() {
+        return new ChessGame();
+    }
+
+    /**
+     * @return an Italian Game after twelve plies, white to move
+     */
+    static ChessGame middlegame() {
+        return play(MIDDLEGAME_MOVES);
+    }
+
+    /**
+     * @return the fool's mate position, white checkmated
+     */
+    static ChessGame checkmate() {
+        return play(FOOLS_MATE_MOVES);
+    }
+
+    /**
+     * @return a king-and-queen endgame in which black, to move, is stalemated
+     */
+    static ChessGame stalemate() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(6, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        return game;
+    }
+
+    /**
+     * @param notation a move in coordinate notation, e.g. "e2e4"
+     * @return the move, without promotion
+     */
+    static ChessMove move(String notation) {
+        return new ChessMove(position(notation.substring(0, 2)), position(notation.substring(2, 4)), null);
+    }
+
+    private static ChessPosition position(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    private static ChessGame play(String[] moves) {
+        ChessGame game = new ChessGame();
+        try {
+            for (String move : moves) {
+                game.makeMove(move(move));
+            }
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException("Benchmark position is not legal", e);
+        }
+        return game;
+    }
+}
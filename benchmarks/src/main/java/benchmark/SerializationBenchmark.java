@@ -0,0 +1,76 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.GameSnapshot;
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+import websocket.messages.LoadGameMessage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of the objects stored in the database and sent over the
+ * websocket, and the binary snapshot alternative
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    private final Gson gson = new Gson();
+
+    private GameData gameData;
+    private LoadGameMessage loadGame;
+    private String gameDataJson;
+    private String loadGameJson;
+    private final ByteBuffer snapshot = ByteBuffer.allocate(GameSnapshot.SIZE);
+
+    @Setup
+    public void setup() {
+        gameData = new GameData(1, "white", "black", "benchmark", Positions.middlegame());
+        loadGame = new LoadGameMessage(gameData);
+        gameDataJson = gson.toJson(gameData);
+        loadGameJson = gson.toJson(loadGame);
+        GameSnapshot.encode(gameData.game(), snapshot);
+    }
+
+    @Benchmark
+    public String gameDataToJson() {
+        return gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData gameDataFromJson() {
+        return gson.fromJson(gameDataJson, GameData.class);
+    }
+
+    @Benchmark
+    public GameData gameDataRoundTrip() {
+        return gson.fromJson(gson.toJson(gameData), GameData.class);
+    }
+
+    @Benchmark
+    public String loadGameToJson() {
+        return gson.toJson(loadGame);
+    }
+
+    @Benchmark
+    public LoadGameMessage loadGameFromJson() {
+        return gson.fromJson(loadGameJson, LoadGameMessage.class);
+    }
+
+    @Benchmark
+    public ByteBuffer snapshotEncode() {
+        snapshot.clear();
+        GameSnapshot.encode(gameData.game(), snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public ChessGame snapshotDecode() {
+        snapshot.rewind();
+        return GameSnapshot.decode(snapshot);
+    }
+}
@@ -10,6 +10,7 @@ import dto.*;
 import exception.ResponseException;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import client.ui.GameUI;
 
 import java.util.*;
@@ -31,7 +32,7 @@ public class ChessClient {
     private WebSocketFacade ws;
     public State state = State.SIGNEDOUT;
     public AuthData auth;
-    private final ConcurrentHashMap<Integer, GameData> games;
+    private final ConcurrentHashMap<Integer, GameSummary> games;
     public GameData currentGame = null;
     private boolean resigning = false;
 
@@ -155,20 +156,15 @@ public class ChessClient {
         response.games().forEach(game -> games.put(game.gameID(), game));
 
         var result = new StringBuilder();
-        for (GameData game : games.values()) {
-            if (game.whiteUsername() == null) {
-                game.setWhiteUsername(("____"));
-            }
-            if (game.blackUsername() == null) {
-                game.setBlackUsername("____");
-            }
+        for (GameSummary game : games.values()) {
             result.append(String.format(
-                            "%d\n\tGameName: %s,\n\tPlayingWhite: %s,\n\tPlayingBlack: %s\n\tGameOver: %s",
+                            "%d\n\tGameName: %s,\n\tPlayingWhite: %s,\n\tPlayingBlack: %s\n\tGameOver: %s\n\tPlies: %d",
                             game.gameID(),
                             game.gameName(),
-                            game.whiteUsername(),
-                            game.blackUsername(),
-                            game.gameOver())
+                            game.whiteUsername() == null ? "____" : game.whiteUsername(),
+                            game.blackUsername() == null ? "____" : game.blackUsername(),
+                            game.gameOver(),
+                            game.plyCount())
             ).append("\n");
         }
         return result.toString();
@@ -181,7 +177,7 @@ public class ChessClient {
             CreateGameResponse response = server.createGame(request);
             games.put(
                     response.gameID(),
-                    new GameData(response.gameID(), null, null, params[0], new ChessGame())
+                    new GameSummary(response.gameID(), null, null, params[0], false, 0)
             );
             return String.format("Created game %s with GameID: %d\n", params[0], response.gameID());
         }
@@ -278,10 +274,10 @@ public class ChessClient {
                 if (pawnPromotion(start, end, params.length)) {
                     throw new ResponseException("Expected: move <STARTPOSITION> <ENDPOSITION> <PROMOTIONPIECE>\n");
                 }
-                move = new ChessMove(start, end, null);
+                move = ChessMove.of(start, end, null);
             } else {
                 if (pawnPromotion(start, end, params.length)) {
-                    move = new ChessMove(start, end, getPromoPiece(params[2]));
+                    move = ChessMove.of(start, end, getPromoPiece(params[2]));
                 } else {
                     throw new ResponseException("Expected: move <STARTPOSITION> <ENDPOSITION>\n");
                 }
@@ -352,7 +348,7 @@ public class ChessClient {
             String row = input[1];
             String col = input[0];
             if (cols.contains(col) && rows.contains(row)) {
-                return new ChessPosition(rows.indexOf(row) + 1, cols.indexOf(col) + 1);
+                return ChessPosition.of(rows.indexOf(row) + 1, cols.indexOf(col) + 1);
             }
         }
         throw new ResponseException(String.format("Error: invalid position '%s'\n", position));
@@ -72,7 +72,7 @@ public class GameUI {
             if (i == 0 || i == 9) {
                 grid[row][i] = RESET_TEXT_COLOR + SET_BG_COLOR_DARK_GREY + rowName + RESET_BG_COLOR;
             } else {
-                ChessPosition position = new ChessPosition(rows.get(row), cols.get(i));
+                ChessPosition position = ChessPosition.of(rows.get(row), cols.get(i));
                 String pieceString = getPiece(board.getPiece(position));
                 if (highlightPosition != null && moves.stream().anyMatch(move -> move.getEndPosition().equals(position))) {
                     grid[row][i] = SET_BG_COLOR_YELLOW + pieceString;
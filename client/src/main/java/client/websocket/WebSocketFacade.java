@@ -1,17 +1,22 @@
 package client.websocket;
 
+import chess.ChessGame;
 import chess.ChessMove;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
 import exception.ResponseException;
+import model.GameData;
 import websocket.commands.ConnectCommand;
 import websocket.commands.LeaveCommand;
 import websocket.commands.MakeMoveCommand;
 import websocket.commands.ResignCommand;
+import websocket.commands.ResyncCommand;
 import websocket.commands.UserGameCommand.CommandType;
 import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameFrame;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
 import websocket.messages.Notification;
 import websocket.messages.ServerMessage;
 
@@ -19,11 +24,14 @@ import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 
 public class WebSocketFacade extends Endpoint {
 
     private final Gson gson = createSerializer();
     private final Integer gameID;
+    private GameData lastGame;
+    private String authToken;
 
     Session session;
     ServerMessageHandler serverMessageHandler;
@@ -42,9 +50,24 @@ public class WebSocketFacade extends Endpoint {
                 @Override
                 public void onMessage(String message) {
                     ServerMessage serverMessage = gson.fromJson(message, ServerMessage.class);
+                    if (serverMessage instanceof MoveAppliedMessage moveApplied) {
+                        applyMove(moveApplied);
+                        return;
+                    }
+                    if (serverMessage instanceof LoadGameMessage loadGame) {
+                        lastGame = loadGame.getGame();
+                    }
                     serverMessageHandler.notify(serverMessage);
                 }
             });
+            this.session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
+                @Override
+                public void onMessage(ByteBuffer frame) {
+                    LoadGameMessage loadGame = LoadGameFrame.decode(frame, lastGame);
+                    lastGame = loadGame.getGame();
+                    serverMessageHandler.notify(loadGame);
+                }
+            });
         } catch (DeploymentException | IOException | URISyntaxException ex) {
             throw new ResponseException(ex.getMessage());
         }
@@ -56,13 +79,42 @@ public class WebSocketFacade extends Endpoint {
 
     public void connectToGame(String authToken, Integer gameID) throws ResponseException {
         try {
-            var command = new ConnectCommand(CommandType.CONNECT, authToken, gameID);
+            this.authToken = authToken;
+            var command = new ConnectCommand(CommandType.CONNECT, authToken, gameID, true, true);
             this.session.getBasicRemote().sendText(gson.toJson(command));
         } catch (IOException e) {
             throw new ResponseException(e.getMessage());
         }
     }
 
+    /**
+     * Plays a move the server made on the local copy of the game and passes the
+     * result on as a LOAD_GAME. If the local game doesn't end up in the position
+     * the server reported, asks the server for the whole game instead.
+     */
+    private void applyMove(MoveAppliedMessage moveApplied) {
+        ChessGame game = lastGame == null ? null : lastGame.game();
+        boolean inSync = false;
+        if (game != null && game.getPly() + 1 == moveApplied.getSequence()
+                && game.getBoard().getPiece(moveApplied.getMove().getStartPosition()) != null) {
+            game.applyMove(moveApplied.getMove());
+            inSync = game.getZobristKey() == moveApplied.getHash();
+        }
+        if (!inSync) {
+            try {
+                var command = new ResyncCommand(CommandType.RESYNC, authToken, gameID);
+                this.session.getBasicRemote().sendText(gson.toJson(command));
+            } catch (IOException e) {
+                serverMessageHandler.notify(new ErrorMessage("Error: lost track of the game: " + e.getMessage()));
+            }
+            return;
+        }
+        if (game.isInCheckmate(game.getTeamTurn())) {
+            lastGame.setGameOver(true);
+        }
+        serverMessageHandler.notify(new LoadGameMessage(lastGame));
+    }
+
     public void leaveGame(String authToken) throws ResponseException {
         try {
             var command = new LeaveCommand(CommandType.LEAVE, authToken, gameID);
@@ -101,6 +153,7 @@ public class WebSocketFacade extends Endpoint {
                     case NOTIFICATION -> message = ctx.deserialize(el, Notification.class);
                     case ERROR -> message = ctx.deserialize(el, ErrorMessage.class);
                     case LOAD_GAME -> message = ctx.deserialize(el, LoadGameMessage.class);
+                    case MOVE_APPLIED -> message = ctx.deserialize(el, MoveAppliedMessage.class);
                 }
             }
             return message;
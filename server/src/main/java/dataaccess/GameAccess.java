@@ -9,6 +9,8 @@ public interface GameAccess {
 
     Set<GameData> getAllGames();
 
+    GameData getGame(Integer gameID);
+
     String addGame(GameData game);
 
     String updateGame(String playerColor, Integer gameID, String username);
@@ -2,19 +2,24 @@ package dataaccess;
 
 import model.GameData;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class MemoryGameAccess implements GameAccess {
 
     private final Set<GameData> gameData;
+    private final Map<Integer, GameData> gamesByID;
 
     public MemoryGameAccess() {
         gameData = new HashSet<>();
+        gamesByID = new HashMap<>();
     }
 
     public String clear() {
         gameData.clear();
+        gamesByID.clear();
         return null;
     }
 
@@ -22,24 +27,28 @@ public class MemoryGameAccess implements GameAccess {
         return gameData;
     }
 
+    public GameData getGame(Integer gameID) {
+        return gamesByID.get(gameID);
+    }
+
     public String addGame(GameData game) {
         if (!gameData.add(game)) {
             return "Failed to add game";
         }
+        gamesByID.put(game.gameID(), game);
         return null;
     }
 
     public String updateGame(String playerColor, Integer gameID, String username) {
-        for (GameData game : gameData) {
-            if (game.gameID().equals(gameID)) {
-                if (playerColor.equals("WHITE")) {
-                    return setWhite(game, username);
-                } else {
-                    return setBlack(game, username);
-                }
-            }
+        GameData game = gamesByID.get(gameID);
+        if (game == null) {
+            return "Failed to update game";
+        }
+        if (playerColor.equals("WHITE")) {
+            return setWhite(game, username);
+        } else {
+            return setBlack(game, username);
         }
-        return "Failed to update game";
     }
 
     private String setWhite(GameData game, String username) {
@@ -0,0 +1,355 @@
+package dataaccess.sql;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * At most maxSize connections are in use at once; a caller that finds them all
+ * taken waits up to the wait timeout and then gets an SQLException. Connections
+ * handed out are wrappers whose close() puts the real connection back, so callers
+ * keep using try-with-resources as before. The most recently returned connection
+ * is reused first. One that sat idle past the validation threshold is checked
+ * with isValid() before reuse, and one idle past the idle timeout is closed,
+ * either when it is next reached or by a background sweep.
+ * <p>
+ * Each connection also keeps the statements prepared on it, up to the statement
+ * cache size, least recently used dropped first. prepareStatement(sql) and
+ * prepareStatement(sql, autoGeneratedKeys) hand back the cached statement when
+ * there is one; closing it only clears its parameters. Every execution of a
+ * statement is timed in the pool's {@link StatementMetrics}.
+ */
+public class ConnectionPool {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new connection to the database
+     */
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final long waitTimeoutMillis;
+    private final long idleTimeoutNanos;
+    private final long validateAfterNanos;
+    private final Semaphore permits;
+    private final int statementCacheSize;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final PoolMetrics metrics;
+    private final StatementMetrics statementMetrics = new StatementMetrics();
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * @param maxSize the most connections open at once
+     * @param waitTimeoutMillis how long to wait for a connection when all are in use
+     * @param idleTimeoutMillis how long a connection may sit unused before it is closed
+     * @param validateAfterMillis how long a connection may sit unused before it is checked on reuse
+     * @param statementCacheSize the most prepared statements each connection keeps
+     */
+    ConnectionPool(ConnectionFactory factory, int maxSize, long waitTimeoutMillis, long idleTimeoutMillis,
+                   long validateAfterMillis, int statementCacheSize) {
+        this.factory = factory;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.metrics = new PoolMetrics(maxSize);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1000, idleTimeoutMillis / 2);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public PoolMetrics metrics() {
+        return metrics;
+    }
+
+    public StatementMetrics statementMetrics() {
+        return statementMetrics;
+    }
+
+    /**
+     * @return a connection to give back by closing it
+     * @throws SQLException if none is free within the wait timeout or a new one can't be opened
+     */
+    Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            metrics.timedOut(waited);
+            throw new SQLException(String.format("No database connection free after %d ms", waitTimeoutMillis));
+        }
+        metrics.borrowed(waited);
+        try {
+            return lease(take());
+        } catch (SQLException | RuntimeException e) {
+            metrics.returned();
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the sweep; connections in use are
+     * closed as they come back
+     */
+    public void close() {
+        sweeper.shutdownNow();
+        List<PooledConnection> closing;
+        synchronized (idle) {
+            closing = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection connection : closing) {
+            metrics.reused();
+            discard(connection);
+        }
+    }
+
+    private PooledConnection take() throws SQLException {
+        while (true) {
+            PooledConnection next;
+            synchronized (idle) {
+                next = idle.pollFirst();
+            }
+            if (next == null) {
+                PooledConnection connection = new PooledConnection(factory.open());
+                metrics.opened();
+                return connection;
+            }
+            metrics.reused();
+            long idleFor = System.nanoTime() - next.idleSince;
+            if (idleFor < idleTimeoutNanos && (idleFor < validateAfterNanos || isValid(next.connection))) {
+                return next;
+            }
+            discard(next);
+        }
+    }
+
+    private void giveBack(PooledConnection pooled) {
+        Connection connection = pooled.connection;
+        try {
+            if (!connection.isClosed() && !sweeper.isShutdown()) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                pooled.idleSince = System.nanoTime();
+                synchronized (idle) {
+                    idle.addFirst(pooled);
+                }
+                metrics.idled();
+            } else {
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            metrics.returned();
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (idle) {
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext()) {
+                PooledConnection next = oldestFirst.next();
+                if (now - next.idleSince < idleTimeoutNanos) {
+                    break;
+                }
+                oldestFirst.remove();
+                expired.add(next);
+            }
+        }
+        for (PooledConnection connection : expired) {
+            metrics.reused();
+            discard(connection);
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes the connection, which also closes the statements prepared on it
+     */
+    private void discard(PooledConnection pooled) {
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            System.err.println("Unable to close database connection: " + e.getMessage());
+        }
+        metrics.closed();
+    }
+
+    /**
+     * Wraps a connection so that closing it returns it to the pool, once, and
+     * preparing a statement it already has reuses it
+     */
+    private Connection lease(PooledConnection pooled) {
+        Connection connection = pooled.connection;
+        AtomicBoolean returned = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (returned.compareAndSet(false, true)) {
+                                giveBack(pooled);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned.get() || connection.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Pooled " + connection;
+                        }
+                        default -> {
+                            if (returned.get()) {
+                                throw new SQLException("Connection already returned to the pool");
+                            }
+                            if (method.getName().equals("prepareStatement") && args.length <= 2
+                                    && (args.length == 1 || args[1] instanceof Integer)) {
+                                int generatedKeys = args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1];
+                                return pooled.prepare((String) args[0], generatedKeys);
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Wraps a cached statement so that closing it leaves it open for the next
+     * caller, and times its executions
+     */
+    private PreparedStatement reusable(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            statement.clearParameters();
+                            statement.clearBatch();
+                            return null;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Cached " + statement;
+                        }
+                        default -> {
+                            boolean execution = method.getName().startsWith("execute");
+                            long start = execution ? System.nanoTime() : 0;
+                            boolean failed = false;
+                            try {
+                                return method.invoke(statement, args);
+                            } catch (InvocationTargetException e) {
+                                failed = true;
+                                throw e.getCause();
+                            } finally {
+                                if (execution) {
+                                    statementMetrics.executed(sql, System.nanoTime() - start, failed);
+                                }
+                            }
+                        }
+                    }
+                });
+    }
+
+    /**
+     * A real connection and the statements prepared on it
+     */
+    private final class PooledConnection {
+        private final Connection connection;
+        private final Map<StatementKey, PreparedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true);
+        private long idleSince;
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Only the connection's current borrower calls this, so the cache needs no lock
+         */
+        PreparedStatement prepare(String sql, int generatedKeys) throws SQLException {
+            StatementKey key = new StatementKey(sql, generatedKeys);
+            PreparedStatement statement = statements.get(key);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql, generatedKeys);
+                statementMetrics.prepared(sql);
+                statements.put(key, statement);
+                if (statements.size() > statementCacheSize) {
+                    Iterator<PreparedStatement> leastRecent = statements.values().iterator();
+                    PreparedStatement evicted = leastRecent.next();
+                    leastRecent.remove();
+                    closeStatement(evicted);
+                }
+            }
+            return reusable(statement, sql);
+        }
+    }
+
+    private record StatementKey(String sql, int generatedKeys) {
+    }
+
+    private static void closeStatement(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Unable to close statement: " + e.getMessage());
+        }
+    }
+}
@@ -11,6 +11,11 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final boolean BINARY_GAMES;
+    private static final boolean MOVE_LOG;
+    private static final int SNAPSHOT_EVERY_MOVES;
+    private static final Properties PROPERTIES;
+    private static final ConnectionPool POOL;
 
     /*
      * Load the database information for the db.properties file.
@@ -30,12 +35,68 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+                BINARY_GAMES = props.getProperty("db.gameFormat", "json").equalsIgnoreCase("binary");
+                MOVE_LOG = props.getProperty("db.gameStorage", "snapshot").equalsIgnoreCase("moves");
+                SNAPSHOT_EVERY_MOVES = Integer.parseInt(props.getProperty("db.snapshotEveryMoves", "20"));
+                PROPERTIES = props;
+                POOL = new ConnectionPool(DatabaseManager::openConnection,
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.waitTimeoutMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "300000")),
+                        Long.parseLong(props.getProperty("db.pool.validateAfterMillis", "5000")),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "32")));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
         }
     }
 
+    /**
+     * Whether games are stored as binary snapshots instead of JSON, set with
+     * db.gameFormat=binary in db.properties
+     */
+    static boolean binaryGames() {
+        return BINARY_GAMES;
+    }
+
+    /**
+     * Whether each move is appended to the game_moves table, with the game's snapshot
+     * only rewritten every few moves, set with db.gameStorage=moves in db.properties
+     */
+    static boolean moveLog() {
+        return MOVE_LOG;
+    }
+
+    /**
+     * How many moves may be appended to a game's log before its snapshot is
+     * rewritten, set with db.snapshotEveryMoves
+     */
+    static int snapshotEveryMoves() {
+        return SNAPSHOT_EVERY_MOVES;
+    }
+
+    /**
+     * Counters for the connection pool, sized and timed with the db.pool.* settings
+     * in db.properties
+     */
+    public static PoolMetrics poolMetrics() {
+        return POOL.metrics();
+    }
+
+    /**
+     * Execution counts and latencies for each SQL statement run through the pool
+     */
+    public static StatementMetrics statementMetrics() {
+        return POOL.statementMetrics();
+    }
+
+    /**
+     * @return the value of a setting in db.properties, or the default if it isn't set
+     */
+    public static String setting(String name, String defaultValue) {
+        return PROPERTIES.getProperty(name, defaultValue);
+    }
+
     /**
      * Creates the database if it does not already exist.
      */
@@ -52,10 +113,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrow a connection to the database from the pool, with its catalog set to
+     * the database specified in db.properties. Connections should be short-lived,
+     * and you must close the connection when you are done with it, which returns it
+     * to the pool. The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DbInfo.getConnection(databaseName)) {
@@ -65,11 +126,15 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws ResponseException  {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
+            return POOL.getConnection();
         } catch (SQLException e) {
             throw new ResponseException(e.getMessage());
         }
     }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        conn.setCatalog(DATABASE_NAME);
+        return conn;
+    }
 }
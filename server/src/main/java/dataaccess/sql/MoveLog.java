@@ -0,0 +1,13 @@
+package dataaccess.sql;
+
+import model.GameData;
+
+/**
+ * Moves made on a game since it was last saved
+ *
+ * @param game the game as it stands after the moves
+ * @param firstPly the ply the first move was made at, counting from 0
+ * @param moves the moves in the order they were made, encoded with PackedMove
+ */
+public record MoveLog(GameData game, int firstPly, int[] moves) {
+}
@@ -0,0 +1,113 @@
+package dataaccess.sql;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the ConnectionPool hands out: how many connections are in use and
+ * idle now, the most ever in use at once, how long callers waited for one and
+ * how many gave up, and how many connections were opened and closed. Few
+ * connections opened against many borrows is the work the pool saves.
+ */
+public class PoolMetrics {
+    private final int maxSize;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger idle = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+
+    PoolMetrics(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    void borrowed(long waitedNanos) {
+        borrows.increment();
+        waited(waitedNanos);
+        peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+    }
+
+    void timedOut(long waitedNanos) {
+        timeouts.increment();
+        waited(waitedNanos);
+    }
+
+    void returned() {
+        active.decrementAndGet();
+    }
+
+    void idled() {
+        idle.incrementAndGet();
+    }
+
+    void reused() {
+        idle.decrementAndGet();
+    }
+
+    void opened() {
+        connectionsOpened.increment();
+    }
+
+    void closed() {
+        connectionsClosed.increment();
+    }
+
+    private void waited(long nanos) {
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public int active() {
+        return active.get();
+    }
+
+    public int idle() {
+        return idle.get();
+    }
+
+    public int peakActive() {
+        return peakActive.get();
+    }
+
+    /**
+     * @return the fraction of the pool in use right now
+     */
+    public double utilisation() {
+        return (double) active.get() / maxSize;
+    }
+
+    public long borrows() {
+        return borrows.sum();
+    }
+
+    public double averageWaitMillis() {
+        long attempts = borrows.sum() + timeouts.sum();
+        return attempts == 0 ? 0 : (double) waitNanos.sum() / attempts / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double maxWaitMillis() {
+        return (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long timeouts() {
+        return timeouts.sum();
+    }
+
+    public long connectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public long connectionsClosed() {
+        return connectionsClosed.sum();
+    }
+}
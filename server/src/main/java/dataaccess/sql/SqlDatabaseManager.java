@@ -50,22 +50,44 @@ public class SqlDatabaseManager {
         }
     }
 
+    /**
+     * @return the key generated by an INSERT, or 0 for any other statement
+     */
     static int executeUpdate(String statement, Object... params) throws ResponseException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            try (var ps = conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS)) {
-                for (int i = 0; i < params.length; i++) {
-                    var param = params[i];
-                    switch (param) {
-                        case String p -> ps.setString(i + 1, p);
-                        case Integer p -> ps.setInt(i + 1, p);
-                        case GameData p -> ps.setString(i + 1, p.toString());
-                        case null -> ps.setNull(i + 1, NULL);
-                        default -> throw new IllegalStateException("Unexpected value: " + param);
-                    }
+            return executeUpdate(conn, statement, params);
+        } catch (SQLException e) {
+            throw new ResponseException(String.format("unable to update database: %s, %s", statement, e.getMessage()));
+        }
+    }
+
+    /**
+     * Runs the statement on a connection the caller already holds, so callers inside an open connection
+     * don't borrow a second one from the pool
+     *
+     * @return the key generated by an INSERT, or 0 for any other statement
+     */
+    static int executeUpdate(Connection conn, String statement, Object... params) throws ResponseException {
+        boolean insert = statement.regionMatches(true, 0, "INSERT", 0, 6);
+        int generatedKeys = insert ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS;
+        try (var ps = conn.prepareStatement(statement, generatedKeys)) {
+            for (int i = 0; i < params.length; i++) {
+                var param = params[i];
+                switch (param) {
+                    case String p -> ps.setString(i + 1, p);
+                    case Integer p -> ps.setInt(i + 1, p);
+                    case byte[] p -> ps.setBytes(i + 1, p);
+                    case GameData p -> ps.setString(i + 1, p.toString());
+                    case null -> ps.setNull(i + 1, NULL);
+                    default -> throw new IllegalStateException("Unexpected value: " + param);
                 }
-                ps.executeUpdate();
+            }
+            ps.executeUpdate();
+            if (!insert) {
+                return 0;
+            }
 
-                var rs = ps.getGeneratedKeys();
+            try (var rs = ps.getGeneratedKeys()) {
                 if (rs.next()) {
                     return rs.getInt(1);
                 }
@@ -1,10 +1,12 @@
 package dataaccess.sql;
 
 import chess.ChessGame;
+import chess.GameSnapshot;
 import com.google.gson.Gson;
 import dto.ListGamesResponse;
 import exception.ResponseException;
 import model.GameData;
+import model.GameSummary;
 import spark.Response;
 
 import java.sql.Connection;
@@ -13,6 +15,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 public class SqlGameAccess {
@@ -29,10 +32,23 @@ public class SqlGameAccess {
                       black_username varchar(256),
                       game_name varchar(256) UNIQUE,
                       game_over BOOLEAN DEFAULT FALSE,
-                      game JSON NOT NULL
+                      game JSON NOT NULL,
+                      game_snapshot BINARY(30),
+                      snapshot_ply INT NOT NULL DEFAULT 0
                     );
                     """;
             SqlDatabaseManager.configureDatabase(createStatement);
+            addColumn("game_snapshot", "BINARY(30)");
+            addColumn("snapshot_ply", "INT NOT NULL DEFAULT 0");
+            String createMovesStatement = """
+                    CREATE TABLE IF NOT EXISTS game_moves (
+                      game_id INT NOT NULL,
+                      ply INT NOT NULL,
+                      move SMALLINT UNSIGNED NOT NULL,
+                      PRIMARY KEY (game_id, ply)
+                    );
+                    """;
+            SqlDatabaseManager.configureDatabase(createMovesStatement);
         } catch (ResponseException e) {
             System.err.println(e.getMessage());
         }
@@ -41,6 +57,7 @@ public class SqlGameAccess {
     public String clear() {
         try {
             SqlDatabaseManager.executeUpdate("TRUNCATE TABLE game");
+            SqlDatabaseManager.executeUpdate("TRUNCATE TABLE game_moves");
             return null;
         } catch (ResponseException e) {
             return e.getMessage();
@@ -52,11 +69,12 @@ public class SqlGameAccess {
             return "Error: no game name provided";
         }
 
-        String chessGameJson = gson.toJson(game.game());
-        String statement = "INSERT INTO game (white_username, black_username, game_name, game) VALUES (?, ?, ?, ?)";
+        String statement = "INSERT INTO game (white_username, black_username, game_name, game, game_snapshot) "
+                + "VALUES (?, ?, ?, ?, ?)";
         try {
             int gameID = SqlDatabaseManager.executeUpdate(
-                    statement, game.whiteUsername(), game.blackUsername(), game.gameName(), chessGameJson
+                    statement, game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    gameJson(game.game()), gameSnapshot(game.game())
             );
             if (gameID == 0) {
                 return "No auto-generated keys made";
@@ -68,9 +86,19 @@ public class SqlGameAccess {
 
     }
 
+    /**
+     * Lists every game without reading any board: the ply count comes from the
+     * snapshot's ply and the last move logged after it
+     */
     public ListGamesResponse getAllGames() {
         try (Connection conn = DatabaseManager.getConnection()) {
-            String statement = "SELECT game_id, white_username, black_username, game_name, game_over, game FROM game";
+            String statement = """
+                    SELECT g.game_id, g.white_username, g.black_username, g.game_name, g.game_over,
+                      GREATEST(g.snapshot_ply, COALESCE(MAX(m.ply) + 1, 0)) AS ply_count
+                    FROM game g
+                    LEFT JOIN game_moves m ON m.game_id = g.game_id AND m.ply >= g.snapshot_ply
+                    GROUP BY g.game_id, g.white_username, g.black_username, g.game_name, g.game_over, g.snapshot_ply
+                    """;
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 try (ResultSet rs = ps.executeQuery()) {
                     return getAllGamesFromRs(rs);
@@ -81,13 +109,37 @@ public class SqlGameAccess {
         }
     }
 
+    /**
+     * @return the game with the given ID, or null if there is none or it could not be read
+     */
+    public GameData getGame(Integer gameID) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            String statement = "SELECT game_id, white_username, black_username, game_name, game_over, game, "
+                    + "game_snapshot FROM game WHERE game_id=?";
+            GameData game;
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, gameID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    game = getGameFromRs(rs);
+                }
+            }
+            replayLoggedMoves(conn, game);
+            return game;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     public String updateGame(String playerColor, Integer gameID, String username) {
         try (Connection conn = DatabaseManager.getConnection()) {
             String statement = "SELECT white_username, black_username, game_over FROM game WHERE game_id=?";
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 ps.setInt(1, gameID);
                 try (ResultSet rs = ps.executeQuery()) {
-                    return checkAndSetDbUsername(rs, username, playerColor, gameID);
+                    return checkAndSetDbUsername(conn, rs, username, playerColor, gameID);
                 }
             }
         } catch (Exception e) {
@@ -101,7 +153,7 @@ public class SqlGameAccess {
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 ps.setInt(1, gameID);
                 try (ResultSet rs = ps.executeQuery()) {
-                    return removeDbUsername(rs, playerColor, gameID);
+                    return removeDbUsername(conn, rs, playerColor, gameID);
                 }
             }
         } catch (Exception e) {
@@ -119,24 +171,146 @@ public class SqlGameAccess {
         }
     }
 
-    public boolean changeGame(GameData game) {
-        try {
-            String chessGameJson = gson.toJson(game.game());
-            String statement;
-            if (game.gameOver()) {
-                statement = "UPDATE game SET game=?, game_over=TRUE WHERE game_id=?";
-                SqlDatabaseManager.executeUpdate(statement, chessGameJson, game.gameID());
-            } else {
-                statement = "UPDATE game SET game=? WHERE game_id=?";
-                SqlDatabaseManager.executeUpdate(statement, chessGameJson, game.gameID());
+    /**
+     * Writes the position of several games in one batch; the game over flag is only
+     * ever set, never cleared
+     *
+     * @return false if the batch failed, in which case none of it was written
+     */
+    public boolean changeGames(Collection<GameData> games) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                writeSnapshots(conn, games);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                return false;
             }
-            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
-    private boolean removeDbUsername(ResultSet rs, String playerColor, Integer gameID) throws SQLException, ResponseException {
+    /**
+     * Saves the moves made on several games since they were last saved, in one
+     * transaction.
+     * <p>
+     * With db.gameStorage=moves each move becomes a row of game_moves, and a game's
+     * snapshot is only rewritten once db.snapshotEveryMoves more plies have been
+     * played or the game is over; loading a game replays the moves logged after its
+     * snapshot. Otherwise the snapshots are rewritten as by {@link #changeGames}.
+     *
+     * @return false if the moves could not be saved, in which case none of them were
+     */
+    public boolean saveMoves(Collection<MoveLog> logs) {
+        if (!DatabaseManager.moveLog()) {
+            List<GameData> games = new ArrayList<>(logs.size());
+            for (MoveLog log : logs) {
+                games.add(log.game());
+            }
+            return changeGames(games);
+        }
+        String statement = "INSERT INTO game_moves (game_id, ply, move) VALUES (?, ?, ?)";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                List<GameData> snapshots = new ArrayList<>();
+                for (MoveLog log : logs) {
+                    for (int i = 0; i < log.moves().length; i++) {
+                        ps.setInt(1, log.game().gameID());
+                        ps.setInt(2, log.firstPly() + i);
+                        ps.setInt(3, log.moves()[i] & 0xFFFF);
+                        ps.addBatch();
+                    }
+                    if (snapshotDue(log)) {
+                        snapshots.add(log.game());
+                    }
+                }
+                ps.executeBatch();
+                writeSnapshots(conn, snapshots);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean snapshotDue(MoveLog log) {
+        int every = DatabaseManager.snapshotEveryMoves();
+        int lastPly = log.firstPly() + log.moves().length;
+        return log.game().gameOver() || lastPly / every != log.firstPly() / every;
+    }
+
+    private void writeSnapshots(Connection conn, Collection<GameData> games) throws SQLException {
+        if (games.isEmpty()) {
+            return;
+        }
+        String statement = "UPDATE game SET game=?, game_snapshot=?, snapshot_ply=?, game_over=(game_over OR ?) "
+                + "WHERE game_id=?";
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            for (GameData game : games) {
+                ps.setString(1, gameJson(game.game()));
+                ps.setBytes(2, gameSnapshot(game.game()));
+                ps.setInt(3, game.game().getPly());
+                ps.setBoolean(4, game.gameOver());
+                ps.setInt(5, game.gameID());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Brings a game loaded from its snapshot up to date with the moves logged after it
+     */
+    private void replayLoggedMoves(Connection conn, GameData game) throws SQLException {
+        String statement = "SELECT m.move FROM game_moves m JOIN game g ON g.game_id = m.game_id "
+                + "WHERE m.game_id=? AND m.ply >= g.snapshot_ply ORDER BY m.ply";
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, game.gameID());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    game.game().applyMove(rs.getInt("move"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a column to game tables created before it existed
+     */
+    private void addColumn(String column, String definition) throws ResponseException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "game", column)) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+            SqlDatabaseManager.executeUpdate(conn, String.format("ALTER TABLE game ADD COLUMN %s %s", column, definition));
+        } catch (SQLException e) {
+            throw new ResponseException(String.format("Unable to add %s column: %s", column, e.getMessage()));
+        }
+    }
+
+    /**
+     * With db.gameFormat=binary the game is kept in game_snapshot and the JSON
+     * column holds a JSON null, which satisfies its NOT NULL constraint
+     */
+    private String gameJson(ChessGame game) {
+        return DatabaseManager.binaryGames() ? "null" : gson.toJson(game);
+    }
+
+    private byte[] gameSnapshot(ChessGame game) {
+        return DatabaseManager.binaryGames() ? GameSnapshot.toBytes(game) : null;
+    }
+
+    private boolean removeDbUsername(Connection conn, ResultSet rs, String playerColor, Integer gameID) throws SQLException, ResponseException {
         if (rs.next()) {
             String statement;
             if (Objects.equals(playerColor, "WHITE")) {
@@ -144,13 +318,13 @@ public class SqlGameAccess {
             } else {
                 statement = "UPDATE game SET black_username=NULL WHERE game_id=?";
             }
-            SqlDatabaseManager.executeUpdate(statement, gameID);
+            SqlDatabaseManager.executeUpdate(conn, statement, gameID);
             return true;
         }
         return false;
     }
 
-    private String checkAndSetDbUsername(ResultSet rs, String username, String playerColor, Integer gameID)
+    private String checkAndSetDbUsername(Connection conn, ResultSet rs, String username, String playerColor, Integer gameID)
             throws SQLException, ResponseException {
         if (rs.next()) {
             if (rs.getBoolean("game_over")) {
@@ -159,9 +333,9 @@ public class SqlGameAccess {
             String whiteUsername = rs.getString("white_username");
             String blackUsername = rs.getString("black_username");
             if (Objects.equals(playerColor, "WHITE") && whiteUsername == null) {
-                return setDbUsername(username, "WHITE", gameID);
+                return setDbUsername(conn, username, "WHITE", gameID);
             } else if (Objects.equals(playerColor, "BLACK") && blackUsername == null) {
-                return setDbUsername(username, "BLACK", gameID);
+                return setDbUsername(conn, username, "BLACK", gameID);
             } else {
                 return "Error: Color already taken";
             }
@@ -169,21 +343,28 @@ public class SqlGameAccess {
         return "GameID: " + gameID + " doesn't exist.";
     }
 
-    private String setDbUsername(String username, String color, Integer gameID) throws ResponseException {
+    private String setDbUsername(Connection conn, String username, String color, Integer gameID) throws ResponseException {
         String statement;
         if (Objects.equals(color, "WHITE")) {
             statement = "UPDATE game SET white_username=? WHERE game_id=?";
         } else {
             statement = "UPDATE game SET black_username=? WHERE game_id=?";
         }
-        SqlDatabaseManager.executeUpdate(statement, username, gameID);
+        SqlDatabaseManager.executeUpdate(conn, statement, username, gameID);
         return null;
     }
 
     private ListGamesResponse getAllGamesFromRs(ResultSet rs) throws SQLException {
-        Collection<GameData> games = new ArrayList<>();
+        Collection<GameSummary> games = new ArrayList<>();
         while (rs.next()) {
-            games.add(getGameFromRs(rs));
+            games.add(new GameSummary(
+                    rs.getInt("game_id"),
+                    rs.getString("white_username"),
+                    rs.getString("black_username"),
+                    rs.getString("game_name"),
+                    rs.getBoolean("game_over"),
+                    rs.getInt("ply_count")
+            ));
         }
         return new ListGamesResponse(games, null);
     }
@@ -194,7 +375,9 @@ public class SqlGameAccess {
         String blackUsername = rs.getString("black_username");
         String gameName = rs.getString("game_name");
         boolean gameOver = rs.getBoolean("game_over");
-        ChessGame game = gson.fromJson(rs.getString("game"), ChessGame.class);
+        byte[] snapshot = rs.getBytes("game_snapshot");
+        ChessGame game = snapshot != null ? GameSnapshot.fromBytes(snapshot)
+                : gson.fromJson(rs.getString("game"), ChessGame.class);
         GameData gameData = new GameData(gameID, whiteUsername, blackUsername, gameName, game);
         if (gameOver) {
             gameData.setGameOver(true);
@@ -0,0 +1,84 @@
+package dataaccess.sql;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Counts, for each distinct SQL string, how often the pool's connections prepared
+ * it and how often and how long it ran. Prepares stay at one per connection for
+ * a statement the cache keeps; a prepare count that climbs with the executions
+ * means the statement cache is too small.
+ * <p>
+ * Snapshots name each statement by a short {@link #id} rather than its SQL, so
+ * the schema and queries don't leave the server with the numbers.
+ */
+public class StatementMetrics {
+
+    private final Map<String, Counters> statements = new ConcurrentHashMap<>();
+
+    void prepared(String sql) {
+        counters(sql).prepares.increment();
+    }
+
+    void executed(String sql, long nanos, boolean failed) {
+        Counters counters = counters(sql);
+        counters.executions.increment();
+        counters.totalNanos.add(nanos);
+        counters.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (failed) {
+            counters.failures.increment();
+        }
+    }
+
+    private Counters counters(String sql) {
+        return statements.computeIfAbsent(sql, key -> new Counters());
+    }
+
+    /**
+     * @return a snapshot of every statement seen so far, keyed and ordered by {@link #id}
+     */
+    public Map<String, Stats> snapshot() {
+        Map<String, Stats> snapshot = new TreeMap<>();
+        statements.forEach((sql, counters) -> snapshot.put(id(sql), counters.stats()));
+        return snapshot;
+    }
+
+    /**
+     * @return the statement's first keyword and a checksum of its text, e.g. "select-1c291ca3"
+     */
+    public static String id(String sql) {
+        String trimmed = sql.strip();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(sql.getBytes(StandardCharsets.UTF_8));
+        return String.format("%s-%08x", trimmed.substring(0, end).toLowerCase(Locale.ROOT), checksum.getValue());
+    }
+
+    public record Stats(long prepares, long executions, long failures, double averageMillis, double maxMillis) {
+    }
+
+    private static final class Counters {
+        private final LongAdder prepares = new LongAdder();
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Stats stats() {
+            long count = executions.sum();
+            double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+            double average = count == 0 ? 0 : totalNanos.sum() / nanosPerMilli / count;
+            return new Stats(prepares.sum(), count, failures.sum(), average, maxNanos.get() / nanosPerMilli);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package server;
+
+import com.google.gson.Gson;
+import dataaccess.sql.PoolMetrics;
+import dataaccess.sql.StatementMetrics;
+import model.AuthData;
+import service.AuthService;
+import server.websocket.BroadcastMetrics;
+import spark.Request;
+import spark.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves the server's counters as JSON for monitoring, to signed-in users only
+ */
+public class MetricsHandler implements Handler {
+
+    private final AuthService authService;
+    private final BroadcastMetrics broadcastMetrics;
+    private final PoolMetrics poolMetrics;
+    private final StatementMetrics statementMetrics;
+    private final Gson gson;
+
+    public MetricsHandler(AuthService authService, BroadcastMetrics broadcastMetrics, PoolMetrics poolMetrics,
+                          StatementMetrics statementMetrics) {
+        this.authService = authService;
+        this.broadcastMetrics = broadcastMetrics;
+        this.poolMetrics = poolMetrics;
+        this.statementMetrics = statementMetrics;
+        gson = new Gson();
+    }
+
+    public String metrics(Request req, Response res) {
+        res.type("application/json");
+        String header = req.headers("authorization");
+        String token = header == null || notValidJson(header) ? null : gson.fromJson(header, String.class);
+        AuthData auth = token == null ? null : authService.verifyAuth(token);
+        if (auth == null || auth.message() != null) {
+            res.status(401);
+            return gson.toJson(Map.of("message", "Error: unauthorized"));
+        }
+
+        Map<String, Object> broadcast = new LinkedHashMap<>();
+        broadcast.put("messagesSerialized", broadcastMetrics.messagesSerialized());
+        broadcast.put("bytesSerialized", broadcastMetrics.bytesSerialized());
+        broadcast.put("messagesSent", broadcastMetrics.messagesSent());
+        broadcast.put("bytesSent", broadcastMetrics.bytesSent());
+        broadcast.put("queuedMessages", broadcastMetrics.queuedMessages());
+        broadcast.put("maxQueueDepth", broadcastMetrics.maxQueueDepth());
+        broadcast.put("messagesDropped", broadcastMetrics.messagesDropped());
+        broadcast.put("slowConsumersDisconnected", broadcastMetrics.slowConsumersDisconnected());
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("maxSize", poolMetrics.maxSize());
+        pool.put("active", poolMetrics.active());
+        pool.put("idle", poolMetrics.idle());
+        pool.put("peakActive", poolMetrics.peakActive());
+        pool.put("utilisation", poolMetrics.utilisation());
+        pool.put("borrows", poolMetrics.borrows());
+        pool.put("averageWaitMillis", poolMetrics.averageWaitMillis());
+        pool.put("maxWaitMillis", poolMetrics.maxWaitMillis());
+        pool.put("timeouts", poolMetrics.timeouts());
+        pool.put("connectionsOpened", poolMetrics.connectionsOpened());
+        pool.put("connectionsClosed", poolMetrics.connectionsClosed());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("broadcast", broadcast);
+        metrics.put("connectionPool", pool);
+        metrics.put("statements", statementMetrics.snapshot());
+        res.status(200);
+        return gson.toJson(metrics);
+    }
+}
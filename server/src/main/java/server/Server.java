@@ -1,5 +1,6 @@
 package server;
 
+import dataaccess.sql.DatabaseManager;
 import dataaccess.sql.SqlDatabaseManager;
 import server.websocket.WebSocketHandler;
 import service.AuthService;
@@ -13,16 +14,20 @@ public class Server {
     private final SessionHandler sessionHandler;
     private final GameHandler gameHandler;
     private final WebSocketHandler webSocketHandler;
+    private final MetricsHandler metricsHandler;
+    private final GameService gameService;
 
     public Server() {
         SqlDatabaseManager dbManager = new SqlDatabaseManager();
         UserService userService = new UserService(dbManager);
-        GameService gameService = new GameService(dbManager);
+        gameService = new GameService(dbManager);
         AuthService authService = new AuthService(dbManager);
         authHandler = new AuthHandler(authService);
         sessionHandler = new SessionHandler(userService);
         gameHandler = new GameHandler(gameService);
         webSocketHandler = new WebSocketHandler(authService, gameService);
+        metricsHandler = new MetricsHandler(authService, webSocketHandler.broadcastMetrics(),
+                DatabaseManager.poolMetrics(), DatabaseManager.statementMetrics());
     }
 
     public int run(int desiredPort) {
@@ -32,7 +37,8 @@ public class Server {
 
         Spark.webSocket("/ws", webSocketHandler);
 
-        Spark.delete("/db", authHandler::handleClear);
+        // Game IDs start over after a clear, so in-memory games must not outlive it
+        Spark.delete("/db", (req, res) -> gameService.clearAll(() -> authHandler.handleClear(req, res)));
 
         Spark.post("/user", authHandler::handleRegister);
 
@@ -46,6 +52,8 @@ public class Server {
 
         Spark.put("/game", gameHandler::joinGame);
 
+        Spark.get("/metrics", metricsHandler::metrics);
+
         //This line initializes the server and can be removed once you have a functioning endpoint 
         Spark.init();
 
@@ -56,5 +64,6 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        gameService.close();
     }
 }
@@ -0,0 +1,84 @@
+package server.websocket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what ConnectionManager encodes and what it sends. Each broadcast message
+ * is encoded once however many connections receive it, so the gap between bytes
+ * serialized and bytes sent is the work saved by sharing the payload. Messages
+ * count as sent once their write completes.
+ * <p>
+ * Also tracks the connections' outbound queues: how many messages are waiting in
+ * them now, the deepest any queue has been, how many messages were dropped
+ * unsent, and how many slow clients were disconnected.
+ */
+public class BroadcastMetrics {
+    private final LongAdder messagesSerialized = new LongAdder();
+    private final LongAdder bytesSerialized = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder queuedMessages = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final LongAdder messagesDropped = new LongAdder();
+    private final LongAdder slowConsumersDisconnected = new LongAdder();
+
+    void serialized(int bytes) {
+        messagesSerialized.increment();
+        bytesSerialized.add(bytes);
+    }
+
+    void sent(int bytes) {
+        messagesSent.increment();
+        bytesSent.add(bytes);
+    }
+
+    void queued(int depth) {
+        queuedMessages.increment();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    void dequeued() {
+        queuedMessages.decrement();
+    }
+
+    void dropped() {
+        messagesDropped.increment();
+    }
+
+    void disconnected() {
+        slowConsumersDisconnected.increment();
+    }
+
+    public long messagesSerialized() {
+        return messagesSerialized.sum();
+    }
+
+    public long bytesSerialized() {
+        return bytesSerialized.sum();
+    }
+
+    public long messagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long queuedMessages() {
+        return queuedMessages.sum();
+    }
+
+    public int maxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long messagesDropped() {
+        return messagesDropped.sum();
+    }
+
+    public long slowConsumersDisconnected() {
+        return slowConsumersDisconnected.sum();
+    }
+}
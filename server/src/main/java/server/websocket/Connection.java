@@ -1,19 +1,149 @@
 package server.websocket;
 
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 
+/**
+ * A client's websocket connection to one game.
+ * <p>
+ * Messages are written with Jetty's asynchronous sends, one at a time, from a
+ * bounded outbound queue, so the thread handling a move never waits on a slow
+ * client. When the queue fills up, the {@link SlowConsumerPolicy} decides what
+ * gives.
+ */
 public class Connection {
     public String authToken;
     public Session session;
+    public boolean binaryFrames;
+    public boolean moveDeltas;
+
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final BroadcastMetrics metrics;
+    private final Deque<Outbound> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
 
     public Connection(String authToken, Session session) {
+        this(authToken, session, ConnectionManager.DEFAULT_QUEUE_CAPACITY, SlowConsumerPolicy.KEEP_LATEST_GAME,
+                new BroadcastMetrics());
+    }
+
+    public Connection(String authToken, Session session, int queueCapacity, SlowConsumerPolicy policy,
+                      BroadcastMetrics metrics) {
         this.authToken = authToken;
         this.session = session;
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * An encoded message waiting to be written: either text or a binary frame
+     *
+     * @param text the JSON text, or null for a binary frame
+     * @param frame the binary frame, or null for text; each write uses a duplicate
+     * @param gameState true if the message describes the whole game, so a newer one replaces it
+     * @param bytes the encoded size, for the metrics
+     */
+    record Outbound(String text, ByteBuffer frame, boolean gameState, int bytes) {
+    }
+
+    public void send(String msg) {
+        send(new Outbound(msg, null, false, ConnectionManager.utf8Length(msg)));
+    }
+
+    /**
+     * Queues a message and starts writing if nothing is being written
+     */
+    void send(Outbound message) {
+        synchronized (this) {
+            if (closed) {
+                metrics.dropped();
+                return;
+            }
+            if (message.gameState() && policy == SlowConsumerPolicy.KEEP_LATEST_GAME) {
+                dropQueuedGameStates();
+            }
+            if (queue.size() >= queueCapacity) {
+                disconnect();
+                return;
+            }
+            queue.add(message);
+            metrics.queued(queue.size());
+            if (writing) {
+                return;
+            }
+            writing = true;
+        }
+        writeNext();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void writeNext() {
+        Outbound next;
+        synchronized (this) {
+            next = queue.poll();
+            if (next == null || closed) {
+                writing = false;
+                return;
+            }
+            metrics.dequeued();
+        }
+        WriteCallback callback = new WriteCallback() {
+            @Override
+            public void writeSuccess() {
+                metrics.sent(next.bytes());
+                writeNext();
+            }
+
+            @Override
+            public void writeFailed(Throwable x) {
+                synchronized (Connection.this) {
+                    writing = false;
+                    closeQueue();
+                }
+            }
+        };
+        if (next.text() != null) {
+            session.getRemote().sendString(next.text(), callback);
+        } else {
+            session.getRemote().sendBytes(next.frame().duplicate(), callback);
+        }
+    }
+
+    private void dropQueuedGameStates() {
+        Iterator<Outbound> queued = queue.iterator();
+        while (queued.hasNext()) {
+            if (queued.next().gameState()) {
+                queued.remove();
+                metrics.dequeued();
+                metrics.dropped();
+            }
+        }
+    }
+
+    private void disconnect() {
+        closeQueue();
+        metrics.disconnected();
+        session.close(StatusCode.POLICY_VIOLATION, "Client is not reading messages fast enough");
     }
 
-    public void send(String msg) throws IOException {
-        session.getRemote().sendString(msg);
+    private void closeQueue() {
+        closed = true;
+        for (int i = 0; i < queue.size(); i++) {
+            metrics.dequeued();
+            metrics.dropped();
+        }
+        queue.clear();
     }
 }
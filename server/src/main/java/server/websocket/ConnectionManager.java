@@ -3,38 +3,89 @@ package server.websocket;
 import com.google.gson.Gson;
 import org.eclipse.jetty.websocket.api.Session;
 import websocket.commands.ConnectCommand;
+import websocket.messages.LoadGameFrame;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
 import websocket.messages.ServerMessage;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class ConnectionManager {
+    static final int DEFAULT_QUEUE_CAPACITY = 64;
+
     private final Gson gson = new Gson();
+    private final BroadcastMetrics metrics = new BroadcastMetrics();
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final ConcurrentHashMap<Session, Connection> bySession = new ConcurrentHashMap<>();
     public final ConcurrentHashMap<Integer, GameConnections> connections = new ConcurrentHashMap<>();
 
+    public ConnectionManager() {
+        this(DEFAULT_QUEUE_CAPACITY, SlowConsumerPolicy.KEEP_LATEST_GAME);
+    }
+
+    /**
+     * @param queueCapacity how many messages may wait to be written to one connection
+     * @param policy what to do with a connection whose queue fills up
+     */
+    public ConnectionManager(int queueCapacity, SlowConsumerPolicy policy) {
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+    }
+
     public void add(ConnectCommand command, Session session) {
         String token = command.getAuthToken();
         Integer gameID = command.getGameID();
-        var connection = new Connection(token, session);
+        var connection = new Connection(token, session, queueCapacity, policy, metrics);
+        connection.binaryFrames = command.binaryFrames();
+        connection.moveDeltas = command.moveDeltas();
         if (connections.get(gameID) == null) {
             GameConnections newGameConnections = new GameConnections();
             connections.put(gameID, newGameConnections);
         }
         connections.get(gameID).add(token, connection);
+        bySession.put(session, connection);
+    }
+
+    public boolean hasConnections(Integer gameID) {
+        GameConnections game = connections.get(gameID);
+        return game != null && !game.connections.isEmpty();
     }
 
     public void remove(Integer gameID, String token) {
-        connections.get(gameID).remove(token);
+        removeConnection(gameID, connections.get(gameID).connections.get(token));
     }
 
-    public void broadcast(Integer gameID, String excludeToken, ServerMessage message) throws IOException {
+    /**
+     * Sends a message to one session. A session that has joined a game shares its
+     * connection's outbound queue, so the message stays in order with broadcasts;
+     * any other session is written to directly. Replies are always JSON, even to
+     * connections that take binary frames, since a LOAD_GAME frame leaves out the
+     * players and name the client only learns from the JSON one.
+     */
+    public void send(Session session, ServerMessage message) throws IOException {
+        Connection connection = bySession.get(session);
+        if (connection != null) {
+            new Payload(message, false).sendTo(connection);
+        } else {
+            session.getRemote().sendString(gson.toJson(message));
+        }
+    }
+
+    public BroadcastMetrics metrics() {
+        return metrics;
+    }
+
+    public void broadcast(Integer gameID, String excludeToken, ServerMessage message) {
         var removeList = new ArrayList<Connection>();
+        var payload = new Payload(message, true);
         for (var c : connections.get(gameID).connections.values()) {
-            if (c.session.isOpen()) {
+            if (c.session.isOpen() && !c.isClosed()) {
                 if (!c.authToken.equals(excludeToken)) {
-
-                    c.send(gson.toJson(message));
+                    payload.sendTo(c);
                 }
             } else {
                 removeList.add(c);
@@ -42,7 +93,92 @@ public class ConnectionManager {
         }
 
         for (var c : removeList) {
-            connections.get(gameID).remove(c.authToken);
+            removeConnection(gameID, c);
+        }
+    }
+
+    /**
+     * Sends the result of a move to every connection watching a game: just the move
+     * to connections that asked for move deltas, the whole game to the rest
+     */
+    public void broadcastMove(Integer gameID, LoadGameMessage loadGame, MoveAppliedMessage moveApplied) {
+        var removeList = new ArrayList<Connection>();
+        var fullPayload = new Payload(loadGame, true);
+        var deltaPayload = new Payload(moveApplied, true);
+        for (var c : connections.get(gameID).connections.values()) {
+            if (c.session.isOpen() && !c.isClosed()) {
+                (c.moveDeltas ? deltaPayload : fullPayload).sendTo(c);
+            } else {
+                removeList.add(c);
+            }
+        }
+
+        for (var c : removeList) {
+            removeConnection(gameID, c);
+        }
+    }
+
+    private void removeConnection(Integer gameID, Connection connection) {
+        if (connection != null) {
+            connections.get(gameID).remove(connection.authToken);
+            bySession.remove(connection.session, connection);
+        }
+    }
+
+    /**
+     * One message being broadcast, encoded the first time a recipient needs each
+     * form of it: JSON text, or a binary frame for LOAD_GAME to connections that
+     * asked for them. Every recipient then gets the same encoded payload.
+     */
+    private final class Payload {
+        private final ServerMessage message;
+        private final boolean framesAllowed;
+        private Connection.Outbound json;
+        private Connection.Outbound frame;
+
+        /**
+         * @param framesAllowed false to send JSON even to connections that take binary frames
+         */
+        Payload(ServerMessage message, boolean framesAllowed) {
+            this.message = message;
+            this.framesAllowed = framesAllowed;
+        }
+
+        void sendTo(Connection c) {
+            boolean gameState = message instanceof LoadGameMessage;
+            if (framesAllowed && c.binaryFrames && message instanceof LoadGameMessage loadGame) {
+                if (frame == null) {
+                    ByteBuffer encoded = LoadGameFrame.encode(loadGame.getGame()).asReadOnlyBuffer();
+                    frame = new Connection.Outbound(null, encoded, true, encoded.remaining());
+                    metrics.serialized(frame.bytes());
+                }
+                c.send(frame);
+            } else {
+                if (json == null) {
+                    String text = gson.toJson(message);
+                    json = new Connection.Outbound(text, null, gameState, utf8Length(text));
+                    metrics.serialized(json.bytes());
+                }
+                c.send(json);
+            }
+        }
+    }
+
+    static int utf8Length(String text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
         }
+        return bytes;
     }
 }
@@ -0,0 +1,17 @@
+package server.websocket;
+
+/**
+ * What a connection does when a client reads more slowly than games change
+ */
+public enum SlowConsumerPolicy {
+    /**
+     * A queued LOAD_GAME that has not been written yet is dropped when a newer one
+     * is queued, since the newer one describes the whole game anyway. The client
+     * is disconnected only if its queue still overflows.
+     */
+    KEEP_LATEST_GAME,
+    /**
+     * Every message is kept, and the client is disconnected as soon as its queue overflows
+     */
+    DISCONNECT
+}
@@ -10,7 +10,6 @@ import com.google.gson.JsonDeserializer;
 import exception.UnauthorizedException;
 import model.AuthData;
 import model.GameData;
-import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
@@ -19,6 +18,7 @@ import service.GameService;
 import websocket.commands.*;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
 import websocket.messages.Notification;
 
 import java.io.IOException;
@@ -40,10 +40,32 @@ public class WebSocketHandler {
         this.gameService = gameService;
     }
 
+    public BroadcastMetrics broadcastMetrics() {
+        return connections.metrics();
+    }
+
+    /**
+     * Hands each command to its game's mailbox, so commands for one game run one at
+     * a time in arrival order while different games run in parallel
+     */
     @OnWebSocketMessage
     public void onMessage(Session session, String message) throws IOException {
+        UserGameCommand command;
+        try {
+            command = gson.fromJson(message, UserGameCommand.class);
+        } catch (Exception e) {
+            sendMessage(session, new ErrorMessage("Error: " + e.getMessage()));
+            return;
+        }
+        if (command == null || command.getGameID() == null) {
+            handle(command, session);
+        } else {
+            gameService.submit(command.getGameID(), () -> handle(command, session));
+        }
+    }
+
+    private void handle(UserGameCommand command, Session session) {
         try {
-            UserGameCommand command = gson.fromJson(message, UserGameCommand.class);
             String username = getUsername(command.getAuthToken());
 
             switch (command.getCommandType()) {
@@ -51,17 +73,26 @@ public class WebSocketHandler {
                 case MAKE_MOVE -> makeMove((MakeMoveCommand) command, session, username);
                 case LEAVE -> leave((LeaveCommand) command, session, username);
                 case RESIGN -> resign((ResignCommand) command, session, username);
+                case RESYNC -> resync((ResyncCommand) command, session);
             }
         } catch (UnauthorizedException ue) {
-            sendMessage(session.getRemote(), new ErrorMessage("Error: unauthorized\n"));
+            trySendMessage(session, new ErrorMessage("Error: unauthorized\n"));
         } catch (Exception e) {
             e.printStackTrace();
-            sendMessage(session.getRemote(), new ErrorMessage("Error: " + e.getMessage()));
+            trySendMessage(session, new ErrorMessage("Error: " + e.getMessage()));
+        }
+    }
+
+    private void trySendMessage(Session session, ErrorMessage errorMessage) {
+        try {
+            sendMessage(session, errorMessage);
+        } catch (IOException e) {
+            System.err.println("Unable to send error: " + e.getMessage());
         }
     }
 
-    private void sendMessage(RemoteEndpoint remote, ErrorMessage errorMessage) throws IOException {
-        remote.sendString(errorMessage.toString());
+    private void sendMessage(Session session, ErrorMessage errorMessage) throws IOException {
+        connections.send(session, errorMessage);
     }
 
     private void connect(ConnectCommand command, Session session, String username) throws IOException {
@@ -76,7 +107,7 @@ public class WebSocketHandler {
         connections.add(command, session);
 
         LoadGameMessage rootMessage = new LoadGameMessage(game);
-        session.getRemote().sendString(gson.toJson(rootMessage));
+        connections.send(session, rootMessage);
         String connType = "observer";
         if (username.equals(game.whiteUsername())) {
             connType = "white";
@@ -101,12 +132,17 @@ public class WebSocketHandler {
             String playerColor = username.equals(game.whiteUsername()) ? "WHITE" : "BLACK";
             if (!gameService.leaveGame(playerColor, command.getGameID())) {
                 String message = "\nError: could not leave game\n";
-                sendMessage(session.getRemote(), new ErrorMessage(message));
+                sendMessage(session, new ErrorMessage(message));
                 return;
             }
         }
 
         connections.remove(command.getGameID(), command.getAuthToken());
+        if (!connections.hasConnections(command.getGameID())) {
+            if (!gameService.releaseGame(command.getGameID())) {
+                System.err.printf("Unable to save game %d, keeping it in memory%n", command.getGameID());
+            }
+        }
         String connType = "observer";
         if (username.equals(game.whiteUsername())){
             connType = "white";
@@ -128,7 +164,7 @@ public class WebSocketHandler {
         }
         if (!gameService.markGameOver(command.getGameID())) {
             String message = "\nError: failed to resign\n";
-            sendMessage(session.getRemote(), new ErrorMessage(message));
+            sendMessage(session, new ErrorMessage(message));
             return;
         }
         String color = "white";
@@ -143,6 +179,14 @@ public class WebSocketHandler {
         connections.broadcast(command.getGameID(), null, notification);
     }
 
+    private void resync(ResyncCommand command, Session session) throws IOException {
+        GameData game = verifyGame(command.getGameID(), session);
+        if (game == null) {
+            return;
+        }
+        connections.send(session, new LoadGameMessage(game));
+    }
+
     private void makeMove(MakeMoveCommand command, Session session, String username) throws IOException {
 
         GameData game = verifyGame(command.getGameID(), session);
@@ -160,8 +204,10 @@ public class WebSocketHandler {
                 game.setGameOver(true);
             }
             if (!gameService.updateGame(game)) {
+                game.game().unmakeMove();
+                game.setGameOver(false);
                 String message = "\nError: failed to make move\n";
-                sendMessage(session.getRemote(), new ErrorMessage(message));
+                sendMessage(session, new ErrorMessage(message));
             } else {
                 Notification notification;
                 notification = getNotification(moveToMake, username);
@@ -175,18 +221,20 @@ public class WebSocketHandler {
                     connections.broadcast(command.getGameID(), null, notification);
                 }
                 LoadGameMessage loadGame = new LoadGameMessage(game);
-                connections.broadcast(command.getGameID(), null, loadGame);
+                ChessGame chessGame = game.game();
+                var moveApplied = new MoveAppliedMessage(moveToMake, chessGame.getZobristKey(), chessGame.getPly());
+                connections.broadcastMove(command.getGameID(), loadGame, moveApplied);
             }
         } catch (InvalidMoveException e) {
             String message = "Error: invalid move\n";
-            sendMessage(session.getRemote(), new ErrorMessage(message));
+            sendMessage(session, new ErrorMessage(message));
         }
     }
 
     private boolean gameOver(GameData game, Session session, String command) throws IOException {
         if (game.gameOver()) {
             String message = String.format("\nError: cannot %s finished game\n", command);
-            sendMessage(session.getRemote(), new ErrorMessage(message));
+            sendMessage(session, new ErrorMessage(message));
             return true;
         }
         return false;
@@ -213,7 +261,7 @@ public class WebSocketHandler {
         GameData game = gameService.verifyGameID(gameID);
         if (game == null) {
             String message = String.format("\nError: no game with GameID %d\n", gameID);
-            sendMessage(session.getRemote(), new ErrorMessage(message));
+            sendMessage(session, new ErrorMessage(message));
             return null;
         }
         return game;
@@ -235,7 +283,7 @@ public class WebSocketHandler {
         } else {
             message = "\nError: cannot make move on white's turn\n";
         }
-        sendMessage(session.getRemote(), new ErrorMessage(message));
+        sendMessage(session, new ErrorMessage(message));
         return true;
     }
 
@@ -243,7 +291,7 @@ public class WebSocketHandler {
         boolean observer = !username.equals(game.whiteUsername()) && !username.equals(game.blackUsername());
         if (observer) {
             String message = "\nError: cannot resign as observer\n";
-            sendMessage(session.getRemote(), new ErrorMessage(message));
+            sendMessage(session, new ErrorMessage(message));
             return true;
         }
         return false;
@@ -262,6 +310,7 @@ public class WebSocketHandler {
                             case RESIGN -> command = ctx.deserialize(el, ResignCommand.class);
                             case MAKE_MOVE -> command = ctx.deserialize(el, MakeMoveCommand.class);
                             case LEAVE -> command = ctx.deserialize(el, LeaveCommand.class);
+                            case RESYNC -> command = ctx.deserialize(el, ResyncCommand.class);
                         }
                     }
                     return command;
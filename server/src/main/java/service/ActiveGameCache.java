@@ -0,0 +1,248 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.sql.MoveLog;
+import dataaccess.sql.SqlGameAccess;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the games people are connected to in memory, as the authoritative copy.
+ * <p>
+ * A game is loaded from the database the first time a command needs it and stays
+ * cached until {@link #release} is called for it. Moves change the cached game
+ * and are written back according to the {@link Durability} mode. A game's pending
+ * write collects the moves made since it was last written along with the
+ * position after the latest one, captured when each move is made, so the writer
+ * never reads a game while its owner is changing it and each batch writes each
+ * game once.
+ * <p>
+ * Only the position is written behind. Players joining or leaving and games
+ * ending are rare and are written straight through by the caller.
+ */
+public class ActiveGameCache {
+
+    private final SqlGameAccess gameAccess;
+    private final Durability durability;
+    private final int movesPerWrite;
+    private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+    private final Map<Integer, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService writer;
+
+    /**
+     * @param gameAccess where games are loaded from and written to
+     * @param durability when moves are written
+     * @param movesPerWrite N for {@link Durability#EVERY_N_MOVES}
+     * @param writeIntervalMillis how often the background writer runs for {@link Durability#ASYNC}
+     */
+    public ActiveGameCache(SqlGameAccess gameAccess, Durability durability, int movesPerWrite,
+                           long writeIntervalMillis) {
+        this.gameAccess = gameAccess;
+        this.durability = durability;
+        this.movesPerWrite = Math.max(1, movesPerWrite);
+        if (durability == Durability.ASYNC) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            writer.scheduleWithFixedDelay(this::flush, writeIntervalMillis, writeIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * @return the cached game, loading it first if needed, or null if there is no such game
+     */
+    public GameData get(Integer gameID) {
+        GameData game = games.get(gameID);
+        if (game != null) {
+            return game;
+        }
+        GameData loaded = gameAccess.getGame(gameID);
+        if (loaded == null) {
+            return null;
+        }
+        GameData existing = games.putIfAbsent(gameID, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * @return the game if it is cached, without loading it
+     */
+    public GameData peek(Integer gameID) {
+        return games.get(gameID);
+    }
+
+    /**
+     * Records a move made on a cached game and writes it back as the durability
+     * mode says. Games that just ended are always written at once. If a write that
+     * was due fails, the move is dropped from the pending moves again, since the
+     * caller takes it back. The pending moves are read and changed under the write
+     * lock, so the background writer can't trim them in between.
+     *
+     * @return false if a write that was due failed
+     */
+    public boolean moveMade(GameData game) {
+        Integer gameID = game.gameID();
+        synchronized (writeLock) {
+            PendingWrite before = pending.get(gameID);
+            PendingWrite write = pending.compute(gameID, (id, current) -> PendingWrite.append(current, game));
+            boolean due = durability == Durability.SYNC || game.gameOver()
+                    || durability == Durability.EVERY_N_MOVES && write.moves().length >= movesPerWrite;
+            if (!due || flush(gameID)) {
+                return true;
+            }
+            pending.computeIfPresent(gameID, (id, current) -> current.withoutLastMove(before));
+            return false;
+        }
+    }
+
+    /**
+     * Writes any pending moves of a game and drops it from the cache. If the write
+     * fails the game stays cached with its moves still pending, so a later load
+     * can't pick up an older position that the pending moves don't follow from.
+     *
+     * @return false if the pending moves could not be written
+     */
+    public boolean release(Integer gameID) {
+        synchronized (writeLock) {
+            if (!flush(gameID)) {
+                return false;
+            }
+            games.remove(gameID);
+            return true;
+        }
+    }
+
+    /**
+     * Writes every pending move in one batch
+     *
+     * @return false if the batch could not be written; its moves stay pending
+     */
+    public boolean flush() {
+        synchronized (writeLock) {
+            if (pending.isEmpty()) {
+                return true;
+            }
+            List<PendingWrite> batch = new ArrayList<>(pending.values());
+            List<MoveLog> logs = new ArrayList<>(batch.size());
+            for (PendingWrite write : batch) {
+                logs.add(write.toMoveLog());
+            }
+            if (!gameAccess.saveMoves(logs)) {
+                return false;
+            }
+            for (PendingWrite write : batch) {
+                saved(write);
+            }
+            return true;
+        }
+    }
+
+    private boolean flush(Integer gameID) {
+        synchronized (writeLock) {
+            PendingWrite write = pending.get(gameID);
+            if (write == null) {
+                return true;
+            }
+            if (!gameAccess.saveMoves(List.of(write.toMoveLog()))) {
+                return false;
+            }
+            saved(write);
+            return true;
+        }
+    }
+
+    /**
+     * Drops the moves just written, keeping any the game's owner made meanwhile
+     */
+    private void saved(PendingWrite write) {
+        pending.computeIfPresent(write.gameID(), (id, current) -> current.after(write));
+    }
+
+    /**
+     * Forgets every cached game and pending move without writing them, for when the
+     * database is cleared and game IDs start over
+     */
+    public void clear() {
+        synchronized (writeLock) {
+            pending.clear();
+            games.clear();
+        }
+    }
+
+    /**
+     * Stops the background writer and writes every pending move
+     */
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Moves made on a game since it was last written, and its position after the
+     * latest of them
+     */
+    private record PendingWrite(Integer gameID, int firstPly, int[] moves, String fen, boolean gameOver) {
+
+        static PendingWrite append(PendingWrite current, GameData game) {
+            ChessGame chessGame = game.game();
+            int move = chessGame.lastMove();
+            if (current == null) {
+                return new PendingWrite(game.gameID(), chessGame.getPly() - 1, new int[]{move}, chessGame.toFen(),
+                        game.gameOver());
+            }
+            int[] moves = Arrays.copyOf(current.moves, current.moves.length + 1);
+            moves[current.moves.length] = move;
+            return new PendingWrite(game.gameID(), current.firstPly, moves, chessGame.toFen(), game.gameOver());
+        }
+
+        /**
+         * @param before the pending write the last move was added to, or null if none
+         */
+        PendingWrite withoutLastMove(PendingWrite before) {
+            if (moves.length == 1) {
+                return null;
+            }
+            return new PendingWrite(gameID, firstPly, Arrays.copyOf(moves, moves.length - 1), before.fen,
+                    before.gameOver);
+        }
+
+        /**
+         * @return the moves left to write once {@code saved} has been written, or null if none
+         */
+        PendingWrite after(PendingWrite saved) {
+            int savedEnd = saved.firstPly + saved.moves.length;
+            if (firstPly + moves.length <= savedEnd) {
+                return null;
+            }
+            return new PendingWrite(gameID, savedEnd, Arrays.copyOfRange(moves, savedEnd - firstPly, moves.length),
+                    fen, gameOver);
+        }
+
+        MoveLog toMoveLog() {
+            GameData game = new GameData(gameID, null, null, null, ChessGame.fromFen(fen));
+            game.setGameOver(gameOver);
+            return new MoveLog(game, firstPly, moves);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package service;
+
+/**
+ * When a move made on an active game is written to the database
+ */
+public enum Durability {
+    /**
+     * Before the move is broadcast; a move is never lost
+     */
+    SYNC,
+    /**
+     * By a background writer shortly afterwards, with every game changed since the
+     * last write saved in one batch; a crash loses at most that interval's moves
+     */
+    ASYNC,
+    /**
+     * Every Nth move of a game, and when the game ends or goes idle; a crash loses
+     * at most N - 1 moves of each game
+     */
+    EVERY_N_MOVES
+}
@@ -0,0 +1,134 @@
+package service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Runs the work that touches a game one game at a time: websocket commands, and
+ * player changes made over HTTP.
+ * <p>
+ * Each game ID owns a mailbox. Commands for the game queue up in it and run strictly
+ * in the order they arrived, on a virtual thread started whenever the mailbox has
+ * work and stopped when it runs dry. Different games have different mailboxes and
+ * run in parallel. Since only the mailbox's commands touch a game, they can load
+ * and change the game kept in memory by the game service without locking it.
+ * <p>
+ * Mailboxes are never removed.
+ */
+public class GameExecutor {
+
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Queues a command to run after every command already queued for the game
+     */
+    public void submit(Integer gameID, Runnable command) {
+        Mailbox mailbox = mailboxes.computeIfAbsent(gameID, id -> new Mailbox(id));
+        if (mailbox.enqueue(command)) {
+            mailbox.start();
+        }
+    }
+
+    /**
+     * Runs a task while no game command is running. Every mailbox first finishes the
+     * commands already queued in it, then holds back anything queued after until the
+     * task is done. Games that get their first command meanwhile are not held back.
+     *
+     * @return what the task returned
+     */
+    public <T> T pauseAll(Supplier<T> task) {
+        List<Mailbox> paused = List.copyOf(mailboxes.values());
+        CountDownLatch reached = new CountDownLatch(paused.size());
+        CountDownLatch resume = new CountDownLatch(1);
+        try {
+            for (Mailbox mailbox : paused) {
+                if (mailbox.enqueue(() -> {
+                    reached.countDown();
+                    awaitUninterruptibly(resume);
+                })) {
+                    mailbox.start();
+                }
+            }
+            awaitUninterruptibly(reached);
+            return task.get();
+        } finally {
+            resume.countDown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Mailbox {
+        private final Integer gameID;
+        private final Deque<Runnable> commands = new ArrayDeque<>();
+        private boolean running;
+
+        Mailbox(Integer gameID) {
+            this.gameID = gameID;
+        }
+
+        /**
+         * @return true if the mailbox was idle, so the caller must start draining it
+         */
+        synchronized boolean enqueue(Runnable command) {
+            commands.add(command);
+            if (running) {
+                return false;
+            }
+            running = true;
+            return true;
+        }
+
+        void start() {
+            Thread.ofVirtual().name("game-" + gameID).start(this::drain);
+        }
+
+        /**
+         * Runs commands until the mailbox is empty. If a command throws an Error the
+         * thread dies with it, so a new thread takes over the remaining commands
+         * rather than leaving the mailbox marked running with nobody draining it.
+         */
+        void drain() {
+            boolean emptied = false;
+            try {
+                while (true) {
+                    Runnable command;
+                    synchronized (this) {
+                        command = commands.poll();
+                        if (command == null) {
+                            running = false;
+                            emptied = true;
+                            return;
+                        }
+                    }
+                    try {
+                        command.run();
+                    } catch (RuntimeException e) {
+                        System.err.printf("Command for game %d failed: %s%n", gameID, e);
+                    }
+                }
+            } finally {
+                if (!emptied) {
+                    start();
+                }
+            }
+        }
+    }
+}
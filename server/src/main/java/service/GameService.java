@@ -1,6 +1,7 @@
 package service;
 
 import chess.ChessGame;
+import dataaccess.sql.DatabaseManager;
 import dataaccess.sql.SqlAuthAccess;
 import dataaccess.sql.SqlDatabaseManager;
 import dataaccess.sql.SqlGameAccess;
@@ -13,15 +14,28 @@ import dto.JoinGameResponse;
 import model.*;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class GameService {
 
     private final SqlGameAccess gameAccess;
     private final SqlAuthAccess authAccess;
+    private final ActiveGameCache activeGames;
+    private final GameExecutor games = new GameExecutor();
 
+    /**
+     * Moves are written as set by game.durability (sync, async or every_n_moves) in
+     * db.properties, with game.writeIntervalMillis and game.movesPerWrite tuning the
+     * last two
+     */
     public GameService(SqlDatabaseManager dbManager) {
         gameAccess = dbManager.gameAccess();
         authAccess = dbManager.authAccess();
+        Durability durability = Durability.valueOf(
+                DatabaseManager.setting("game.durability", "sync").toUpperCase());
+        int movesPerWrite = Integer.parseInt(DatabaseManager.setting("game.movesPerWrite", "10"));
+        long writeIntervalMillis = Long.parseLong(DatabaseManager.setting("game.writeIntervalMillis", "250"));
+        activeGames = new ActiveGameCache(gameAccess, durability, movesPerWrite, writeIntervalMillis);
     }
 
     public ListGamesResponse listGames(ListGamesRequest req) {
@@ -66,25 +80,112 @@ public class GameService {
         if (updateMessage != null) {
             return new JoinGameResponse(updateMessage);
         }
+        setActivePlayer(req.gameID(), req.playerColor(), auth.username());
 
         return new JoinGameResponse(null);
     }
 
     public boolean leaveGame(String playerColor, Integer gameID) {
-        return gameAccess.leaveGame(playerColor, gameID);
+        if (!gameAccess.leaveGame(playerColor, gameID)) {
+            return false;
+        }
+        setActivePlayer(gameID, playerColor, null);
+        return true;
     }
 
+    /**
+     * Only call from a command running on the game's mailbox, which owns the cached game
+     */
     public boolean markGameOver(Integer gameID) {
-        return gameAccess.markGameOver(gameID);
+        if (!gameAccess.markGameOver(gameID)) {
+            return false;
+        }
+        GameData active = activeGames.peek(gameID);
+        if (active != null) {
+            active.setGameOver(true);
+        }
+        return true;
     }
 
+    /**
+     * Records a move made on an active game; whether it reaches the database before
+     * this returns depends on the durability setting
+     */
     public boolean updateGame(GameData game) {
-        return gameAccess.changeGame(game);
+        return activeGames.moveMade(game);
     }
 
+    /**
+     * @return the game, kept in memory from now on until it is released, or null if
+     * there is no such game
+     */
     public GameData verifyGameID(Integer gameID) {
-        ListGamesResponse response = gameAccess.getAllGames();
-        return response.games().stream()
-                .filter((game) -> game.gameID().equals(gameID)).findFirst().orElse(null);
+        if (gameID == null) {
+            return null;
+        }
+        return activeGames.get(gameID);
+    }
+
+    /**
+     * Writes any unsaved moves of a game nobody is connected to any more and stops
+     * keeping it in memory
+     *
+     * @return false if the moves could not be written, in which case the game stays
+     * in memory and its moves are written later
+     */
+    public boolean releaseGame(Integer gameID) {
+        return activeGames.release(gameID);
+    }
+
+    /**
+     * Clears the database and forgets every active game while no game command is
+     * running, so a command can't put a game back in memory after the clear. Commands
+     * already queued finish first; commands queued meanwhile run afterwards and load
+     * from the cleared database.
+     *
+     * @param clearDatabase clears the database
+     * @return what clearDatabase returned
+     */
+    public <T> T clearAll(Supplier<T> clearDatabase) {
+        return games.pauseAll(() -> {
+            T result = clearDatabase.get();
+            activeGames.clear();
+            return result;
+        });
+    }
+
+    /**
+     * Writes every unsaved move, for shutdown
+     */
+    public void close() {
+        activeGames.close();
+    }
+
+    /**
+     * Queues a command to run on the game's mailbox after every command already
+     * queued for it. Only commands on a game's mailbox may load or change the game
+     * kept in memory.
+     */
+    public void submit(Integer gameID, Runnable command) {
+        games.submit(gameID, command);
+    }
+
+    /**
+     * Copies a player change already written to the database into the cached game,
+     * on the game's mailbox. If the game isn't cached yet, a later load reads the
+     * change from the database.
+     */
+    private void setActivePlayer(Integer gameID, String playerColor, String username) {
+        games.submit(gameID, () -> {
+            GameData game = activeGames.peek(gameID);
+            if (game == null) {
+                return;
+            }
+            if (Objects.equals(playerColor, "WHITE")) {
+                game.setWhiteUsername(username);
+            } else {
+                game.setBlackUsername(username);
+            }
+        });
     }
 }
@@ -1,6 +1,10 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import dataaccess.sql.MoveLog;
 import dataaccess.sql.SqlAuthAccess;
 import dataaccess.sql.SqlDatabaseManager;
 import dataaccess.sql.SqlGameAccess;
@@ -9,9 +13,11 @@ import dto.ListGamesResponse;
 import dto.LoginResponse;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 import org.junit.jupiter.api.*;
 
+import java.util.List;
 import java.util.Objects;
 
 public class DataAccessTests {
@@ -208,6 +214,56 @@ public class DataAccessTests {
         Assertions.assertTrue(result.games().isEmpty());
     }
 
+    @Test
+    @DisplayName("Get Game From Database by ID")
+    public void normalGetGameTest() {
+        int gameID = Integer.parseInt(sqlDbManager.gameAccess().addGame(normalGame));
+
+        GameData result = sqlDbManager.gameAccess().getGame(gameID);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(normalGame.gameName(), result.gameName());
+        Assertions.assertEquals(normalGame.game(), result.game());
+    }
+
+    @Test
+    @DisplayName("Get Game With Bad Game ID")
+    public void badIdGetGameTest() {
+        sqlDbManager.gameAccess().addGame(normalGame);
+
+        Assertions.assertNull(sqlDbManager.gameAccess().getGame(-1));
+    }
+
+    @Test
+    @DisplayName("Saved Moves Load Back")
+    public void saveMovesTest() throws InvalidMoveException {
+        int gameID = Integer.parseInt(sqlDbManager.gameAccess().addGame(normalGame));
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        int first = game.lastMove();
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        MoveLog log = new MoveLog(new GameData(gameID, null, null, null, game), 0, new int[]{first, game.lastMove()});
+
+        Assertions.assertTrue(sqlDbManager.gameAccess().saveMoves(List.of(log)));
+        Assertions.assertEquals(game, sqlDbManager.gameAccess().getGame(gameID).game());
+    }
+
+    @Test
+    @DisplayName("Game Summaries Count Saved Plies")
+    public void gameSummaryPlyCountTest() throws InvalidMoveException {
+        int gameID = Integer.parseInt(sqlDbManager.gameAccess().addGame(normalGame));
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null));
+        MoveLog log = new MoveLog(new GameData(gameID, null, null, null, game), 0, new int[]{game.lastMove()});
+        sqlDbManager.gameAccess().saveMoves(List.of(log));
+
+        GameSummary summary = sqlDbManager.gameAccess().getAllGames().games().iterator().next();
+
+        Assertions.assertEquals(normalGame.gameName(), summary.gameName());
+        Assertions.assertEquals(1, summary.plyCount());
+        Assertions.assertFalse(summary.gameOver());
+    }
+
     @Test
     @DisplayName("Normal Update Game")
     public void normalUpdateGameTest() {
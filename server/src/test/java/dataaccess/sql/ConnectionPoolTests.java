@@ -0,0 +1,186 @@
+package dataaccess.sql;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConnectionPoolTests {
+
+    private List<Connection> opened;
+    private List<Connection> closed;
+    private List<String> prepared;
+    private boolean valid;
+
+    @BeforeEach
+    public void setup() {
+        opened = Collections.synchronizedList(new ArrayList<>());
+        closed = Collections.synchronizedList(new ArrayList<>());
+        prepared = Collections.synchronizedList(new ArrayList<>());
+        valid = true;
+    }
+
+    @Test
+    @DisplayName("Closing a pooled connection returns it for reuse")
+    public void reuse() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 2, 100, 60_000, 60_000, 8);
+
+        Connection first = pool.getConnection();
+        first.close();
+        first.close();
+        Connection second = pool.getConnection();
+
+        Assertions.assertTrue(first.isClosed());
+        Assertions.assertThrows(SQLException.class, first::getCatalog);
+        Assertions.assertEquals("game", second.getCatalog());
+        Assertions.assertEquals(1, opened.size());
+        Assertions.assertEquals(2, pool.metrics().borrows());
+        Assertions.assertEquals(1, pool.metrics().active());
+        Assertions.assertEquals(0, pool.metrics().idle());
+        second.close();
+        Assertions.assertEquals(1, pool.metrics().idle());
+    }
+
+    @Test
+    @DisplayName("A full pool makes callers wait, then gives up")
+    public void waitTimeout() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 1, 50, 60_000, 60_000, 8);
+
+        Connection held = pool.getConnection();
+
+        Assertions.assertThrows(SQLException.class, pool::getConnection);
+        Assertions.assertEquals(1, pool.metrics().timeouts());
+        Assertions.assertTrue(pool.metrics().maxWaitMillis() >= 40);
+        Assertions.assertEquals(1.0, pool.metrics().utilisation());
+        held.close();
+        pool.getConnection().close();
+        Assertions.assertEquals(1, opened.size());
+    }
+
+    @Test
+    @DisplayName("Idle connections that fail validation are replaced")
+    public void invalidConnectionReplaced() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 1, 100, 60_000, 0, 8);
+
+        pool.getConnection().close();
+        valid = false;
+        pool.getConnection().close();
+
+        Assertions.assertEquals(2, opened.size());
+        Assertions.assertEquals(List.of(opened.getFirst()), closed);
+        Assertions.assertEquals(1, pool.metrics().connectionsClosed());
+    }
+
+    @Test
+    @DisplayName("Each statement is prepared once per connection and its executions are timed")
+    public void statementsCached() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 1, 100, 60_000, 60_000, 1);
+        String select = "SELECT username FROM auth WHERE auth_token=?";
+        String insert = "INSERT INTO auth (username, auth_token) VALUES (?, ?)";
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(select)) {
+                ps.setString(1, "token" + i);
+                ps.executeQuery();
+            }
+        }
+        try (Connection conn = pool.getConnection()) {
+            conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS).close();
+            conn.prepareStatement(select).close();
+        }
+
+        Map<String, StatementMetrics.Stats> snapshot = pool.statementMetrics().snapshot();
+        StatementMetrics.Stats stats = snapshot.get(StatementMetrics.id(select));
+        Assertions.assertTrue(StatementMetrics.id(select).matches("select-[0-9a-f]{8}"), StatementMetrics.id(select));
+        Assertions.assertNotEquals(StatementMetrics.id(select), StatementMetrics.id(insert));
+        Assertions.assertFalse(snapshot.containsKey(select));
+        Assertions.assertEquals(List.of(select, insert, select), prepared);
+        Assertions.assertEquals(2, stats.prepares());
+        Assertions.assertEquals(3, stats.executions());
+        Assertions.assertEquals(0, stats.failures());
+    }
+
+    @Test
+    @DisplayName("Joins holding every connection at once update on the connection they already hold")
+    public void joinsHoldEveryConnection() throws Exception {
+        int size = 3;
+        ConnectionPool pool = new ConnectionPool(this::open, size, 100, 60_000, 60_000, 8);
+        CyclicBarrier allHeld = new CyclicBarrier(size);
+        ExecutorService joins = Executors.newFixedThreadPool(size);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                results.add(joins.submit(() -> {
+                    try (Connection conn = pool.getConnection()) {
+                        conn.prepareStatement("SELECT white_username, black_username FROM game WHERE game_id=?")
+                                .close();
+                        allHeld.await();
+                        return SqlDatabaseManager.executeUpdate(conn,
+                                "UPDATE game SET white_username=? WHERE game_id=?", "player", 1);
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                Assertions.assertEquals(0, result.get());
+            }
+        } finally {
+            joins.shutdownNow();
+        }
+
+        Assertions.assertEquals(0, pool.metrics().timeouts());
+        Assertions.assertEquals(size, pool.metrics().peakActive());
+        Assertions.assertEquals(size, pool.metrics().borrows());
+    }
+
+    private Connection open() {
+        boolean[] isClosed = {false};
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isValid" -> valid;
+                    case "isClosed" -> isClosed[0];
+                    case "getAutoCommit" -> true;
+                    case "getCatalog" -> "game";
+                    case "prepareStatement" -> {
+                        prepared.add((String) args[0]);
+                        yield statement();
+                    }
+                    case "close" -> {
+                        isClosed[0] = true;
+                        closed.add((Connection) proxy);
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+        opened.add(connection);
+        return connection;
+    }
+
+    private PreparedStatement statement() {
+        boolean[] isClosed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isClosed" -> isClosed[0];
+                    case "executeUpdate" -> 0;
+                    case "close" -> {
+                        isClosed[0] = true;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
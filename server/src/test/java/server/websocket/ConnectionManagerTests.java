@@ -0,0 +1,175 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.*;
+import websocket.commands.ConnectCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameFrame;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.Notification;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionManagerTests {
+
+    private static final Integer GAME_ID = 1;
+
+    private List<Object> sent;
+    private List<WriteCallback> pendingWrites;
+    private boolean completeWrites;
+    private boolean closed;
+
+    @BeforeEach
+    public void setup() {
+        sent = new ArrayList<>();
+        pendingWrites = new ArrayList<>();
+        completeWrites = true;
+        closed = false;
+    }
+
+    @Test
+    @DisplayName("Broadcast encodes a message once for all recipients")
+    public void serializeOnce() {
+        ConnectionManager manager = new ConnectionManager();
+        for (int i = 0; i < 3; i++) {
+            connect(manager, "token" + i);
+        }
+
+        manager.broadcast(GAME_ID, "token0", loadGame());
+
+        BroadcastMetrics metrics = manager.metrics();
+        Assertions.assertEquals(2, sent.size());
+        Assertions.assertSame(sent.get(0), sent.get(1));
+        Assertions.assertEquals(1, metrics.messagesSerialized());
+        Assertions.assertEquals(2, metrics.messagesSent());
+        Assertions.assertEquals(2 * metrics.bytesSerialized(), metrics.bytesSent());
+        Assertions.assertEquals(0, metrics.queuedMessages());
+    }
+
+    @Test
+    @DisplayName("A slow client only gets the latest queued game")
+    public void slowConsumerKeepsLatestGame() {
+        ConnectionManager manager = new ConnectionManager(4, SlowConsumerPolicy.KEEP_LATEST_GAME);
+        connect(manager, "slow");
+        completeWrites = false;
+
+        manager.broadcast(GAME_ID, null, loadGame());
+        manager.broadcast(GAME_ID, null, new Notification("first"));
+        manager.broadcast(GAME_ID, null, loadGame());
+        manager.broadcast(GAME_ID, null, new Notification("second"));
+        manager.broadcast(GAME_ID, null, loadGame());
+
+        BroadcastMetrics metrics = manager.metrics();
+        Assertions.assertEquals(1, sent.size());
+        Assertions.assertEquals(1, metrics.messagesDropped());
+        Assertions.assertEquals(3, metrics.queuedMessages());
+
+        completeWrites = true;
+        pendingWrites.removeFirst().writeSuccess();
+
+        Assertions.assertEquals(4, sent.size());
+        Assertions.assertTrue(((String) sent.get(3)).contains("LOAD_GAME"));
+        Assertions.assertEquals(0, metrics.queuedMessages());
+        Assertions.assertFalse(closed);
+    }
+
+    @Test
+    @DisplayName("A client whose queue overflows is disconnected")
+    public void slowConsumerDisconnected() {
+        ConnectionManager manager = new ConnectionManager(1, SlowConsumerPolicy.DISCONNECT);
+        connect(manager, "slow");
+        completeWrites = false;
+
+        manager.broadcast(GAME_ID, null, loadGame());
+        manager.broadcast(GAME_ID, null, loadGame());
+        manager.broadcast(GAME_ID, null, loadGame());
+
+        Assertions.assertTrue(closed);
+        Assertions.assertEquals(1, manager.metrics().slowConsumersDisconnected());
+        Assertions.assertEquals(1, manager.metrics().messagesDropped());
+        Assertions.assertEquals(0, manager.metrics().queuedMessages());
+    }
+
+    @Test
+    @DisplayName("A binary frame client gets its connect reply as JSON and later games as frames")
+    public void binaryConnectReplyIsJson() throws IOException {
+        ConnectionManager manager = new ConnectionManager();
+        Session session = session();
+        manager.add(new ConnectCommand(UserGameCommand.CommandType.CONNECT, "token", GAME_ID, true, false), session);
+
+        manager.send(session, loadGame());
+        manager.broadcast(GAME_ID, null, loadGame());
+
+        Assertions.assertEquals(2, sent.size());
+        Assertions.assertTrue(((String) sent.get(0)).contains("\"whiteUsername\":\"white\""));
+        Assertions.assertEquals(LoadGameFrame.SIZE, ((ByteBuffer) sent.get(1)).remaining());
+    }
+
+    @Test
+    @DisplayName("A binary frame client without move deltas gets each move as a full game frame")
+    public void binaryWithoutDeltasGetsFrames() throws InvalidMoveException {
+        ConnectionManager manager = new ConnectionManager();
+        manager.add(new ConnectCommand(UserGameCommand.CommandType.CONNECT, "frames", GAME_ID, true, false), session());
+        manager.add(new ConnectCommand(UserGameCommand.CommandType.CONNECT, "deltas", GAME_ID, true, true), session());
+        ChessGame game = new ChessGame();
+        ChessMove move = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        game.makeMove(move);
+
+        manager.broadcastMove(GAME_ID, new LoadGameMessage(new GameData(GAME_ID, "white", "black", "game", game)),
+                new MoveAppliedMessage(move, game.getZobristKey(), game.getPly()));
+
+        Assertions.assertEquals(2, sent.size());
+        ByteBuffer frame = (ByteBuffer) sent.stream().filter(ByteBuffer.class::isInstance).findFirst().orElseThrow();
+        String delta = (String) sent.stream().filter(String.class::isInstance).findFirst().orElseThrow();
+        Assertions.assertEquals(LoadGameFrame.SIZE, frame.remaining());
+        Assertions.assertTrue(delta.contains("MOVE_APPLIED"), delta);
+    }
+
+    private void connect(ConnectionManager manager, String token) {
+        manager.add(new ConnectCommand(UserGameCommand.CommandType.CONNECT, token, GAME_ID), session());
+    }
+
+    private static LoadGameMessage loadGame() {
+        return new LoadGameMessage(new GameData(GAME_ID, "white", "black", "game", new ChessGame()));
+    }
+
+    private Session session() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("send")) {
+                        sent.add(args[0]);
+                        WriteCallback callback = (WriteCallback) args[1];
+                        if (completeWrites) {
+                            callback.writeSuccess();
+                        } else {
+                            pendingWrites.add(callback);
+                        }
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> !closed;
+                    case "getRemote" -> remote;
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,117 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameExecutorTests {
+
+    @Test
+    @DisplayName("Commands for one game run one at a time in order")
+    public void sameGameInOrder() throws InterruptedException {
+        GameExecutor executor = new GameExecutor();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int command = i;
+            executor.submit(1, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                order.add(command);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, overlaps.get());
+        for (int i = 0; i < order.size(); i++) {
+            Assertions.assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("A command that throws an Error doesn't stop the game's later commands")
+    public void errorKeepsDraining() throws InterruptedException {
+        GameExecutor executor = new GameExecutor();
+        CountDownLatch queuedBehind = new CountDownLatch(1);
+        CountDownLatch submittedLater = new CountDownLatch(1);
+
+        executor.submit(1, () -> {
+            throw new AssertionError("failed command");
+        });
+        executor.submit(1, queuedBehind::countDown);
+        Assertions.assertTrue(queuedBehind.await(5, TimeUnit.SECONDS));
+        executor.submit(1, submittedLater::countDown);
+
+        Assertions.assertTrue(submittedLater.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Different games run in parallel")
+    public void differentGamesInParallel() throws InterruptedException {
+        GameExecutor executor = new GameExecutor();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (int gameID = 1; gameID <= 2; gameID++) {
+            executor.submit(gameID, () -> {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("A paused task runs after queued commands and before later ones")
+    public void pauseAllWaitsForQueuedCommands() throws InterruptedException {
+        GameExecutor executor = new GameExecutor();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.submit(1, () -> {
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            order.add("queued");
+        });
+        CountDownLatch otherGame = new CountDownLatch(1);
+        executor.submit(2, otherGame::countDown);
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(otherGame.await(5, TimeUnit.SECONDS));
+        Thread pauser = Thread.ofVirtual().start(() -> executor.pauseAll(() -> {
+            executor.submit(1, () -> {
+                order.add("later");
+                done.countDown();
+            });
+            return order.add("task");
+        }));
+        finish.countDown();
+        pauser.join(5000);
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of("queued", "task", "later"), order);
+    }
+}
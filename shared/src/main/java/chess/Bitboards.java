@@ -0,0 +1,195 @@
+package chess;
+
+/**
+ * Square indexing and bitboard helpers shared by the board and the move calculators.
+ * <p>
+ * Squares are numbered 0-63 with a1 = 0, h1 = 7 and h8 = 63, so bit {@code n} of a
+ * bitboard is set when square {@code n} is in the set.
+ */
+final class Bitboards {
+
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_8 = RANK_1 << 56;
+
+    private static final long NOT_FILE_A = ~FILE_A;
+    private static final long NOT_FILE_H = ~FILE_H;
+    private static final long NOT_FILES_AB = ~(FILE_A | FILE_A << 1);
+    private static final long NOT_FILES_GH = ~(FILE_H | FILE_H >>> 1);
+
+    private static final long[] KNIGHT_TARGETS = new long[64];
+    private static final long[] KING_TARGETS = new long[64];
+
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}, {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}};
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_TARGETS[square] = knightTargets(bit(square));
+            KING_TARGETS[square] = kingTargets(bit(square));
+            for (int[] direction : DIRECTIONS) {
+                long line = bit(square)
+                        | ray(square, 0L, direction[0], direction[1])
+                        | ray(square, 0L, -direction[0], -direction[1]);
+                long between = 0L;
+                int row = row(square) + direction[0];
+                int col = column(square) + direction[1];
+                for (int next = square(row, col); next >= 0; next = square(row, col)) {
+                    BETWEEN[square][next] = between;
+                    LINE[square][next] = line;
+                    between |= bit(next);
+                    row += direction[0];
+                    col += direction[1];
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @param row the 1-based row
+     * @param col the 1-based column
+     * @return the square index, or -1 if the row or column is off the board
+     */
+    static int square(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return -1;
+        }
+        return (row - 1) * 8 + col - 1;
+    }
+
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    static ChessPosition position(int square) {
+        return ChessPosition.of(row(square), column(square));
+    }
+
+    /**
+     * @return the 1-based row of the square
+     */
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of the square
+     */
+    static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Gets every square a knight on any of the given squares attacks.
+     *
+     * @param knights bitboard of knight squares
+     * @return bitboard of attacked squares
+     */
+    static long knightTargets(long knights) {
+        return (knights << 17 & NOT_FILE_A)
+                | (knights << 15 & NOT_FILE_H)
+                | (knights << 10 & NOT_FILES_AB)
+                | (knights << 6 & NOT_FILES_GH)
+                | (knights >>> 17 & NOT_FILE_H)
+                | (knights >>> 15 & NOT_FILE_A)
+                | (knights >>> 10 & NOT_FILES_GH)
+                | (knights >>> 6 & NOT_FILES_AB);
+    }
+
+    /**
+     * Gets every square a king on any of the given squares attacks.
+     *
+     * @param kings bitboard of king squares
+     * @return bitboard of attacked squares
+     */
+    static long kingTargets(long kings) {
+        long sideways = (kings << 1 & NOT_FILE_A) | (kings >>> 1 & NOT_FILE_H);
+        long row = kings | sideways;
+        return sideways | row << 8 | row >>> 8;
+    }
+
+    /**
+     * Looks up the squares a knight on one square attacks in a table built at class load.
+     *
+     * @param square the knight's square index
+     * @return bitboard of attacked squares
+     */
+    static long knightTargetsOf(int square) {
+        return KNIGHT_TARGETS[square];
+    }
+
+    /**
+     * Looks up the squares a king on one square attacks in a table built at class load.
+     *
+     * @param square the king's square index
+     * @return bitboard of attacked squares
+     */
+    static long kingTargetsOf(int square) {
+        return KING_TARGETS[square];
+    }
+
+    /**
+     * @return bitboard of the squares strictly between two squares on a shared
+     * row, column or diagonal, or 0 if the squares are not aligned
+     */
+    static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return bitboard of the whole row, column or diagonal through two squares,
+     * edge to edge, or 0 if the squares are not aligned
+     */
+    static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /**
+     * Gets every square a pawn of the given color on any of the given squares attacks.
+     *
+     * @param pawns bitboard of pawn squares
+     * @param color the color of the pawns
+     * @return bitboard of attacked squares
+     */
+    static long pawnAttacks(long pawns, ChessGame.TeamColor color) {
+        if (color == ChessGame.TeamColor.WHITE) {
+            return (pawns << 9 & NOT_FILE_A) | (pawns << 7 & NOT_FILE_H);
+        }
+        return (pawns >>> 7 & NOT_FILE_A) | (pawns >>> 9 & NOT_FILE_H);
+    }
+
+    /**
+     * Walks a ray from a square, stopping at (and including) the first occupied square.
+     *
+     * @param square the square the ray starts from, which is not included
+     * @param occupied bitboard of every occupied square
+     * @param rowIncrement the row step of the direction
+     * @param colIncrement the column step of the direction
+     * @return bitboard of the squares the ray reaches
+     */
+    static long ray(int square, long occupied, int rowIncrement, int colIncrement) {
+        long targets = 0L;
+        int row = row(square) + rowIncrement;
+        int col = column(square) + colIncrement;
+        int next = square(row, col);
+        while (next >= 0) {
+            targets |= bit(next);
+            if ((occupied & bit(next)) != 0) {
+                break;
+            }
+            row += rowIncrement;
+            col += colIncrement;
+            next = square(row, col);
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,91 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights, kept as four bits so they can be stored, compared and hashed
+ * as a single int.
+ * <p>
+ * Rights are only ever lost. A move clears the rights tied to the squares it
+ * leaves and lands on (a king or rook leaving home, or a rook being captured at
+ * home), so updating them is a lookup per square rather than a scan of the
+ * game's history.
+ */
+final class Castling {
+
+    static final int WHITE_KING_SIDE = 1;
+    static final int WHITE_QUEEN_SIDE = 2;
+    static final int BLACK_KING_SIDE = 4;
+    static final int BLACK_QUEEN_SIDE = 8;
+    static final int ALL = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+    static final int NONE = 0;
+
+    static final int WHITE_KING_HOME = 4;
+    static final int BLACK_KING_HOME = 60;
+
+    private static final int[] KEPT = new int[64];
+
+    static {
+        Arrays.fill(KEPT, ALL);
+        KEPT[0] &= ~WHITE_QUEEN_SIDE;
+        KEPT[7] &= ~WHITE_KING_SIDE;
+        KEPT[WHITE_KING_HOME] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        KEPT[56] &= ~BLACK_QUEEN_SIDE;
+        KEPT[63] &= ~BLACK_KING_SIDE;
+        KEPT[BLACK_KING_HOME] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+    }
+
+    private Castling() {
+    }
+
+    /**
+     * @param rights the rights before a move
+     * @param from the square the move starts on
+     * @param to the square the move ends on
+     * @return the rights after the move
+     */
+    static int update(int rights, int from, int to) {
+        return rights & KEPT[from] & KEPT[to];
+    }
+
+    /**
+     * Works out the rights a board set up from scratch should have: a side may
+     * castle towards a rook when its king and that rook are both on their
+     * starting squares.
+     *
+     * @param board the board to look at
+     * @return the inferred rights
+     */
+    static int infer(ChessBoard board) {
+        int rights = NONE;
+        for (TeamColor color : TeamColor.values()) {
+            int home = kingHome(color);
+            if ((board.pieces(color, PieceType.KING) & Bitboards.bit(home)) == 0) {
+                continue;
+            }
+            long rooks = board.pieces(color, PieceType.ROOK);
+            if ((rooks & Bitboards.bit(home + 3)) != 0) {
+                rights |= kingSide(color);
+            }
+            if ((rooks & Bitboards.bit(home - 4)) != 0) {
+                rights |= queenSide(color);
+            }
+        }
+        return rights;
+    }
+
+    static int kingHome(TeamColor color) {
+        return color == TeamColor.WHITE ? WHITE_KING_HOME : BLACK_KING_HOME;
+    }
+
+    static int kingSide(TeamColor color) {
+        return color == TeamColor.WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+    }
+
+    static int queenSide(TeamColor color) {
+        return color == TeamColor.WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+    }
+}
@@ -3,20 +3,31 @@ import chess.ChessGame.TeamColor;
 import chess.ChessPiece.PieceType;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * The board is stored as twelve bitboards, one per color and piece type, plus
+ * occupancy masks for each color and for the whole board. See {@link Bitboards}
+ * for how squares map onto bits. A Zobrist key of the placement is kept up to
+ * date as pieces are added and removed.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
-    private ChessPiece[][] squares;
+    private static final int PIECE_TYPES = PieceType.values().length;
+    private static final ChessPiece[] PIECES = createPieces();
+
+    private final long[] pieces;
+    private final long[] colors;
+    private long occupied;
+    private long zobristKey;
 
     public ChessBoard() {
-        this.squares = new ChessPiece[8][8];
+        this.pieces = new long[PIECES.length];
+        this.colors = new long[TeamColor.values().length];
     }
 
     @Override
@@ -25,12 +36,42 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        return zobristKey == that.zobristKey && Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
+    }
+
+    /**
+     * Reads a board from the piece placement field of Forsyth-Edwards Notation. A
+     * full FEN string is accepted too; only its first field is used.
+     *
+     * @param fen the piece placement, or a whole position, in FEN
+     * @return a board with the pieces placed
+     * @throws IllegalArgumentException if the placement cannot be read
+     */
+    public static ChessBoard fromFen(String fen) {
+        return Fen.parsePlacement(fen.trim().split("\\s+", 2)[0]);
+    }
+
+    /**
+     * @return the piece placement field of Forsyth-Edwards Notation for the board
+     */
+    public String toFen() {
+        return Fen.formatPlacement(this);
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board. Boards with the same pieces on
+     * the same squares always share a key, so it can stand in for the board in caches
+     * and tables; different boards collide only with negligible probability.
+     *
+     * @return 64-bit key of the piece placement
+     */
+    public long getZobristKey() {
+        return zobristKey;
     }
 
     /**
@@ -40,7 +81,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(checkedSquare(position), piece);
     }
 
     /**
@@ -51,7 +92,7 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow() - 1][position.getColumn() - 1];
+        return getPiece(checkedSquare(position));
     }
 
     /**
@@ -59,7 +100,10 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        this.squares = new ChessPiece[8][8];
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        occupied = 0L;
+        zobristKey = 0L;
 
         for (int row = 1; row <= 8; row++){
             switch (row) {
@@ -90,19 +134,19 @@ public class ChessBoard {
         for (int col = 1; col<=8; col++) {
             switch (col) {
                 case 1, 8:
-                    this.addPiece(new ChessPosition(row, col), new ChessPiece(color, PieceType.ROOK));
+                    this.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, PieceType.ROOK));
                     break;
                 case 2, 7:
-                    this.addPiece(new ChessPosition(row, col), new ChessPiece(color, PieceType.KNIGHT));
+                    this.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, PieceType.KNIGHT));
                     break;
                 case 3, 6:
-                    this.addPiece(new ChessPosition(row, col), new ChessPiece(color, PieceType.BISHOP));
+                    this.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, PieceType.BISHOP));
                     break;
                 case 4:
-                    this.addPiece(new ChessPosition(row, col), new ChessPiece(color, PieceType.QUEEN));
+                    this.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, PieceType.QUEEN));
                     break;
                 case 5:
-                    this.addPiece(new ChessPosition(row, col), new ChessPiece(color, PieceType.KING));
+                    this.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, PieceType.KING));
                     break;
             }
         }
@@ -115,7 +159,196 @@ public class ChessBoard {
      */
     private void setPawns(int row, TeamColor color) {
         for (int col = 1; col <= 8; col++) {
-            this.addPiece(new ChessPosition(row, col), new ChessPiece(color, PieceType.PAWN));
+            this.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, PieceType.PAWN));
+        }
+    }
+
+    /**
+     * Determines if any piece of the given team attacks a position
+     *
+     * @param position the position to check
+     * @param attacker the team whose pieces may attack it
+     * @return True if the position is attacked by the team
+     */
+    public boolean isSquareAttacked(ChessPosition position, TeamColor attacker) {
+        return isSquareAttacked(checkedSquare(position), attacker);
+    }
+
+    /**
+     * Determines if a square is attacked by working outward from it: a square is
+     * attacked by a piece exactly when that piece type standing on the square
+     * would attack the attacker's piece.
+     *
+     * @param square the square index to check
+     * @param attacker the team whose pieces may attack it
+     * @return True if the square is attacked by the team
+     */
+    boolean isSquareAttacked(int square, TeamColor attacker) {
+        return isSquareAttacked(square, attacker, occupied);
+    }
+
+    /**
+     * Determines if a square would be attacked with a different set of occupied
+     * squares, as when checking where a king can step with the king itself
+     * lifted off the board
+     *
+     * @param square the square index to check
+     * @param attacker the team whose pieces may attack it
+     * @param occupied bitboard of the squares that block sliding pieces
+     * @return True if the square is attacked by the team
+     */
+    boolean isSquareAttacked(int square, TeamColor attacker, long occupied) {
+        long bit = Bitboards.bit(square);
+        TeamColor defender = attacker == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        if ((Bitboards.knightTargetsOf(square) & pieces(attacker, PieceType.KNIGHT)) != 0
+                || (Bitboards.pawnAttacks(bit, defender) & pieces(attacker, PieceType.PAWN)) != 0
+                || (Bitboards.kingTargetsOf(square) & pieces(attacker, PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = pieces(attacker, PieceType.QUEEN);
+        long straight = pieces(attacker, PieceType.ROOK) | queens;
+        long diagonal = pieces(attacker, PieceType.BISHOP) | queens;
+        return (SlidingAttacks.rook(square, occupied) & straight) != 0
+                || (SlidingAttacks.bishop(square, occupied) & diagonal) != 0;
+    }
+
+    /**
+     * Gets every piece of a team that attacks a square
+     *
+     * @param square the square index to check
+     * @param attacker the team whose pieces may attack it
+     * @return bitboard of the attacking pieces
+     */
+    long attackersOf(int square, TeamColor attacker) {
+        TeamColor defender = attacker == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        long queens = pieces(attacker, PieceType.QUEEN);
+        return (Bitboards.knightTargetsOf(square) & pieces(attacker, PieceType.KNIGHT))
+                | (Bitboards.pawnAttacks(Bitboards.bit(square), defender) & pieces(attacker, PieceType.PAWN))
+                | (Bitboards.kingTargetsOf(square) & pieces(attacker, PieceType.KING))
+                | (SlidingAttacks.rook(square, occupied) & (pieces(attacker, PieceType.ROOK) | queens))
+                | (SlidingAttacks.bishop(square, occupied) & (pieces(attacker, PieceType.BISHOP) | queens));
+    }
+
+    /**
+     * Gets a team's king square straight from its king bitboard, which addPiece
+     * keeps current.
+     *
+     * @param color the team whose king to find
+     * @return the king's square index, or -1 if the team has no king on the board
+     */
+    int kingSquare(TeamColor color) {
+        long king = pieces(color, PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Puts a piece on a square, replacing whatever was there
+     *
+     * @param square the square index to set
+     * @param piece the piece to put there, or null to empty the square
+     */
+    void setPiece(int square, ChessPiece piece) {
+        long bit = Bitboards.bit(square);
+        if ((occupied & bit) != 0) {
+            int removed = pieceIndex(square);
+            pieces[removed] &= ~bit;
+            colors[removed / PIECE_TYPES] &= ~bit;
+            occupied &= ~bit;
+            zobristKey ^= Zobrist.piece(removed, square);
+        }
+        if (piece != null) {
+            int added = index(piece.getTeamColor(), piece.getPieceType());
+            pieces[added] |= bit;
+            colors[piece.getTeamColor().ordinal()] |= bit;
+            occupied |= bit;
+            zobristKey ^= Zobrist.piece(added, square);
+        }
+    }
+
+    /**
+     * @param square the square index to look at
+     * @return the piece on the square, or null if it is empty
+     */
+    ChessPiece getPiece(int square) {
+        if ((occupied & Bitboards.bit(square)) == 0) {
+            return null;
+        }
+        return PIECES[pieceIndex(square)];
+    }
+
+    /**
+     * @param square an occupied square index
+     * @return a code from 0 to 11 for the color and type of the piece on the square
+     */
+    int pieceCode(int square) {
+        return pieceIndex(square);
+    }
+
+    /**
+     * Puts a piece given by its {@link #pieceCode} on a square
+     */
+    void setPieceCode(int square, int code) {
+        setPiece(square, PIECES[code]);
+    }
+
+    /**
+     * @return bitboard of the squares holding the given color and type of piece
+     */
+    long pieces(TeamColor color, PieceType type) {
+        return pieces[index(color, type)];
+    }
+
+    /**
+     * @return bitboard of the squares holding pieces of the given color
+     */
+    long pieces(TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @param square an occupied square index
+     * @return the index of the bitboard holding the piece on the square
+     */
+    private int pieceIndex(int square) {
+        long bit = Bitboards.bit(square);
+        TeamColor color = (colors[TeamColor.WHITE.ordinal()] & bit) != 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        int first = color.ordinal() * PIECE_TYPES;
+        for (int i = first; i < first + PIECE_TYPES - 1; i++) {
+            if ((pieces[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return first + PIECE_TYPES - 1;
+    }
+
+    private static int checkedSquare(ChessPosition position) {
+        int square = Bitboards.square(position);
+        if (square < 0) {
+            throw new IndexOutOfBoundsException(
+                    String.format("(%d, %d) is off the board", position.getRow(), position.getColumn())
+            );
+        }
+        return square;
+    }
+
+    private static int index(TeamColor color, PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    private static ChessPiece[] createPieces() {
+        ChessPiece[] pieces = new ChessPiece[TeamColor.values().length * PIECE_TYPES];
+        for (TeamColor color : TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                pieces[index(color, type)] = ChessPiece.of(color, type);
+            }
         }
+        return pieces;
     }
 }
@@ -1,24 +1,113 @@
 package chess;
 
-import java.util.ArrayList;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Deque;
+import java.util.Objects;
 
 /**
  * For a class that can manage a chess game, making moves on a board
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * Gson writes a game as its position in FEN; see {@link ChessGameAdapter}.
  */
+@JsonAdapter(ChessGameAdapter.class)
 public class ChessGame {
 
     private TeamColor turn;
     private ChessBoard board;
+    private int castlingRights;
+    private int enPassantSquare = -1;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private transient Deque<MoveUndo> undoStack = new ArrayDeque<>();
 
     public ChessGame() {
         board = new ChessBoard();
         turn = TeamColor.WHITE;
         board.resetBoard();
+        castlingRights = Castling.ALL;
+    }
+
+    /**
+     * Starts a game on a board that is already set up, with white to move and no
+     * castling rights or en passant square, for decoders that set those themselves
+     */
+    ChessGame(ChessBoard board) {
+        this.board = board;
+        turn = TeamColor.WHITE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChessGame that = (ChessGame) o;
+        return turn == that.turn
+                && castlingRights == that.castlingRights
+                && enPassantSquare == that.enPassantSquare
+                && Objects.equals(board, that.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getZobristKey());
+    }
+
+    /**
+     * Reads a game from Forsyth-Edwards Notation
+     *
+     * @param fen the position in FEN; trailing fields may be left out
+     * @return a game set up in that position
+     * @throws IllegalArgumentException if the FEN cannot be read
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return the game's position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * Gets the Zobrist key of the position: the board's incrementally maintained key
+     * combined with the side to move, the castling rights and the en passant square.
+     * Equal positions always share a key, so the key can be used for move caches,
+     * repetition detection and transposition tables.
+     *
+     * @return 64-bit key of the position
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey() ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        if (turn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        return key;
+    }
+
+    /**
+     * Counts how many times the current position has already occurred among the
+     * positions before the moves recorded since the board was last set
+     *
+     * @return number of earlier occurrences of the current position
+     */
+    public int getRepetitionCount() {
+        long key = getZobristKey();
+        int count = 0;
+        for (MoveUndo undo : undoStack) {
+            if (undo.key() == key) {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
@@ -57,27 +146,30 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
-        TeamColor teamColor = piece.getTeamColor();
-
-        Collection<ChessMove> origMoves = piece.pieceMoves(board, startPosition);
-        ArrayList<ChessMove> legalMoves = new ArrayList<>();
-
-        for (ChessMove move : origMoves) {
-            ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-            board.addPiece(move.getStartPosition(), null);
-            board.addPiece(move.getEndPosition(), piece);
-
-            boolean inCheck = isInCheck(teamColor);
-
-            board.addPiece(move.getStartPosition(), piece);
-            board.addPiece(move.getEndPosition(), capturedPiece);
+        MoveList moves = new MoveList();
+        validMoves(Bitboards.square(startPosition), moves);
+        return moves.toChessMoves();
+    }
 
-            if (!inCheck) {
-                legalMoves.add(move);
-            }
-        }
+    /**
+     * Appends every legal move for the team whose turn it is to a list
+     *
+     * @param moves the list to add the moves to
+     */
+    public void legalMoves(MoveList moves) {
+        MoveGenerator.generate(board, turn, board.pieces(turn), castlingRights, enPassantSquare, moves);
+    }
 
-        return legalMoves;
+    /**
+     * Appends the valid moves of the piece on a square to a list, whichever
+     * team's turn it is
+     *
+     * @param square an occupied square index
+     * @param moves the list to add the moves to
+     */
+    void validMoves(int square, MoveList moves) {
+        TeamColor color = board.getPiece(square).getTeamColor();
+        MoveGenerator.generate(board, color, Bitboards.bit(square), castlingRights, enPassantFor(color), moves);
     }
 
     /**
@@ -89,54 +181,166 @@ public class ChessGame {
     public void makeMove(ChessMove move) throws InvalidMoveException {
         String invalidMove = "Invalid move";
 
-        if (
-                move == null
-                || validMoves(move.getStartPosition()) == null
-                || board.getPiece(move.getStartPosition()).getTeamColor() != turn
-                || !validMoves(move.getStartPosition()).contains(move)
-        ) {
+        if (move == null || Bitboards.square(move.getStartPosition()) < 0
+                || Bitboards.square(move.getEndPosition()) < 0) {
             throw new InvalidMoveException(invalidMove);
-        } else if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(), new ChessPiece(turn, move.getPromotionPiece()));
-            board.addPiece(move.getStartPosition(), null);
-            setTeamTurn(getOtherTeam(turn));
-        } else {
-            board.addPiece(move.getEndPosition(), board.getPiece(move.getStartPosition()));
-            board.addPiece(move.getStartPosition(), null);
-            setTeamTurn(getOtherTeam(turn));
         }
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN) {
+            throw new InvalidMoveException(invalidMove);
+        }
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        if (piece == null || piece.getTeamColor() != turn) {
+            throw new InvalidMoveException(invalidMove);
+        }
+        int packed = PackedMove.of(board, move);
+        MoveList moves = new MoveList();
+        validMoves(PackedMove.from(packed), moves);
+        if (!moves.contains(packed)) {
+            throw new InvalidMoveException(invalidMove);
+        }
+        applyMove(packed);
     }
 
     /**
-     * Determines if the given team is in check
+     * Makes a move without checking that it is legal, recording what it changed so
+     * unmakeMove can take it back. Lets callers walk move trees (searching, replaying
+     * or analysing games) without copying or re-validating the board.
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move chess move to perform; its start position must hold a piece
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = getKingPosition(teamColor);
-
-        TeamColor otherTeam = getOtherTeam(teamColor);
+    public void applyMove(ChessMove move) {
+        applyMove(PackedMove.of(board, move));
+    }
 
-        // Loop through game board
-        for (int i=1; i<=8; i++) {
-            for (int j=1; j<=8; j++) {
+    /**
+     * Makes a move encoded with {@link PackedMove} without checking that it is legal,
+     * as {@link #applyMove(ChessMove)} does
+     *
+     * @param move the encoded move; its start square must hold a piece
+     */
+    public void applyMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.getPiece(from);
+        TeamColor color = piece.getTeamColor();
+        int capturedSquare = PackedMove.flags(move) == PackedMove.EN_PASSANT
+                ? MoveGenerator.enPassantCaptureSquare(to, color) : to;
+        ChessPiece captured = board.getPiece(capturedSquare);
+        undoStack.push(new MoveUndo(move, piece, captured, turn, castlingRights, enPassantSquare, halfmoveClock,
+                getZobristKey()));
+
+        board.setPiece(capturedSquare, null);
+        if (PackedMove.isPromotion(move)) {
+            board.setPiece(to, ChessPiece.of(color, PackedMove.promotionPiece(move)));
+        } else {
+            board.setPiece(to, piece);
+        }
+        board.setPiece(from, null);
+        moveCastlingRook(move, color, false);
+
+        castlingRights = Castling.update(castlingRights, from, to);
+        enPassantSquare = -1;
+        if (PackedMove.flags(move) == PackedMove.DOUBLE_PAWN_PUSH) {
+            int skipped = (from + to) / 2;
+            // Only record the square when an enemy pawn could actually capture onto it
+            long capturers = Bitboards.pawnAttacks(Bitboards.bit(skipped), color)
+                    & board.pieces(getOtherTeam(color), ChessPiece.PieceType.PAWN);
+            if (capturers != 0) {
+                enPassantSquare = skipped;
+            }
+        }
+        if (captured != null || piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (color == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        setTeamTurn(getOtherTeam(color));
+    }
 
-                ChessPosition position = new ChessPosition(i, j);
-                ChessPiece piece = board.getPiece(position);
+    /**
+     * @return the most recent move made with makeMove or applyMove, encoded with PackedMove
+     * @throws IllegalStateException if no move has been made since the game was loaded
+     */
+    public int lastMove() {
+        MoveUndo undo = undoStack.peek();
+        if (undo == null) {
+            throw new IllegalStateException("No move made");
+        }
+        return undo.move();
+    }
 
-                // If piece is not null and is of the other team
-                if (piece != null && piece.getTeamColor() == otherTeam) {
-                    // Get all possible moves for the piece
-                    Collection<ChessMove> moves = board.getPiece(position).pieceMoves(board, position);
+    /**
+     * Takes back the most recent move made with makeMove or applyMove, restoring the
+     * board and turn exactly as they were before it
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        MoveUndo undo = undoStack.poll();
+        if (undo == null) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        int move = undo.move();
+        int to = PackedMove.to(move);
+        TeamColor color = undo.piece().getTeamColor();
+        moveCastlingRook(move, color, true);
+        board.setPiece(to, null);
+        board.setPiece(PackedMove.from(move), undo.piece());
+        if (PackedMove.flags(move) == PackedMove.EN_PASSANT) {
+            board.setPiece(MoveGenerator.enPassantCaptureSquare(to, color), undo.captured());
+        } else {
+            board.setPiece(to, undo.captured());
+        }
+        castlingRights = undo.castlingRights();
+        enPassantSquare = undo.enPassantSquare();
+        halfmoveClock = undo.halfmoveClock();
+        if (color == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        setTeamTurn(undo.turn());
+        assert getZobristKey() == undo.key() : "unmakeMove did not restore the position";
+    }
 
-                    if (checkForCheck(moves, kingPosition)) {
-                        return true;
-                    }
-                }
-            }
+    /**
+     * Moves the rook that goes with a castling move, or puts it back
+     *
+     * @param move the encoded move, which need not be a castle
+     * @param color the color of the castling king
+     * @param undo true to move the rook back to its corner
+     */
+    private void moveCastlingRook(int move, TeamColor color, boolean undo) {
+        int flags = PackedMove.flags(move);
+        if (flags != PackedMove.KING_CASTLE && flags != PackedMove.QUEEN_CASTLE) {
+            return;
         }
-        return false;
+        int home = Castling.kingHome(color);
+        int corner = flags == PackedMove.KING_CASTLE ? home + 3 : home - 4;
+        int landing = flags == PackedMove.KING_CASTLE ? home + 1 : home - 1;
+        ChessPiece rook = ChessPiece.of(color, ChessPiece.PieceType.ROOK);
+        board.setPiece(undo ? landing : corner, null);
+        board.setPiece(undo ? corner : landing, rook);
+    }
+
+    /**
+     * @return the en passant square if the team is the one to move, otherwise -1
+     */
+    private int enPassantFor(TeamColor teamColor) {
+        return teamColor == turn ? enPassantSquare : -1;
+    }
+
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        int kingSquare = board.kingSquare(teamColor);
+        return kingSquare >= 0 && board.isSquareAttacked(kingSquare, getOtherTeam(teamColor));
     }
 
     /**
@@ -146,22 +350,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        for (int i=1; i<=8; i++) {
-            for (int j=1; j<=8; j++) {
-                ChessPosition position = new ChessPosition(i, j);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece != null && teamColor == piece.getTeamColor()) {
-                    if (!validMoves(new ChessPosition(i, j)).isEmpty()) {
-                        return false;
-                    }
-                    moves.addAll(validMoves(position));
-                }
-            }
-        }
-        return moves.isEmpty() && isInCheck(teamColor);
+        return isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
     /**
@@ -172,22 +361,18 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        for (int i=1; i<=8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(i, j));
-                if (piece != null
-                        && piece.getTeamColor() == teamColor
-                        && !validMoves(new ChessPosition(i, j)).isEmpty()
-                ) {
-                    return false;
-                }
-            }
-        }
+        return !isInCheck(teamColor) && !hasLegalMove(teamColor);
+    }
 
-        return true;
+    /**
+     * Determines if the given team has any legal move, returning as soon as one is
+     * found rather than collecting them all
+     *
+     * @param teamColor which team to look for a move for
+     * @return True if the team can make at least one legal move
+     */
+    public boolean hasLegalMove(TeamColor teamColor) {
+        return MoveGenerator.hasLegalMove(board, teamColor, enPassantFor(teamColor));
     }
 
     /**
@@ -197,6 +382,72 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        castlingRights = Castling.infer(board);
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        undoStack.clear();
+    }
+
+    /**
+     * Sets the castling rights and en passant square directly, for positions read
+     * from a notation that records them instead of inferring them from the board.
+     * Set the turn first: like {@link #applyMove(int)}, the en passant square is only
+     * kept when a pawn of the side to move could actually capture onto it.
+     *
+     * @param castlingRights the castling rights bits
+     * @param enPassantSquare the en passant target square index, or -1 for none
+     */
+    void setCastlingAndEnPassant(int castlingRights, int enPassantSquare) {
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = -1;
+        if (enPassantSquare >= 0) {
+            long capturers = Bitboards.pawnAttacks(Bitboards.bit(enPassantSquare), getOtherTeam(turn))
+                    & board.pieces(turn, ChessPiece.PieceType.PAWN);
+            if (capturers != 0) {
+                this.enPassantSquare = enPassantSquare;
+            }
+        }
+    }
+
+    /**
+     * Sets the move counters directly, for positions read from a notation that records them
+     *
+     * @param halfmoveClock plies since the last capture or pawn move
+     * @param fullmoveNumber the number of the current full move, starting at 1
+     */
+    void setMoveCounters(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * @return plies since the last capture or pawn move, for the fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current full move, starting at 1 and increased after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the number of plies played, worked out from the move counters
+     */
+    public int getPly() {
+        return (fullmoveNumber - 1) * 2 + (turn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    int getEnPassantSquare() {
+        return enPassantSquare;
     }
 
     /**
@@ -208,41 +459,23 @@ public class ChessGame {
         return board;
     }
 
-    private ChessPosition getKingPosition(TeamColor teamColor) {
-        ChessPosition kingPosition = null;
-        for (int i=1; i<=8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(i, j));
-                if (piece != null
-                        && piece.getTeamColor() == teamColor
-                        && piece.getPieceType() == ChessPiece.PieceType.KING
-                ) {
-                    kingPosition = new ChessPosition(i, j);
-                }
-            }
-        }
-        return kingPosition;
-    }
-
     private TeamColor getOtherTeam(TeamColor teamColor) {
         return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
-     * Checks if any of the moves are the same as the king's position (i.e. the king is in check)
+     * What unmakeMove needs to take a move back
      *
-     * @param moves the moves to check
-     * @param kingPosition the king's position
-     * @return true if the king is in check
+     * @param move the move that was made, encoded with PackedMove
+     * @param piece the piece that moved, before any promotion
+     * @param captured the piece that was captured, or null
+     * @param turn whose turn it was before the move
+     * @param castlingRights the castling rights before the move
+     * @param enPassantSquare the en passant square before the move
+     * @param halfmoveClock the halfmove clock before the move
+     * @param key the Zobrist key of the position before the move
      */
-    private boolean checkForCheck(Collection<ChessMove> moves, ChessPosition kingPosition) {
-
-        // Check if any of the moves are the same as the king's position
-        for (ChessMove move : moves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-        return false;
+    private record MoveUndo(int move, ChessPiece piece, ChessPiece captured, TeamColor turn,
+                            int castlingRights, int enPassantSquare, int halfmoveClock, long key) {
     }
 }
@@ -0,0 +1,86 @@
+package chess;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Serializes a {@link ChessGame} as a single FEN string, so a stored game or a
+ * LOAD_GAME message carries about 60 characters instead of the board's fields.
+ * <p>
+ * Games stored before the change were written field by field as the original
+ * 8x8 array of pieces; those objects are still read, so existing rows keep
+ * loading and are rewritten as FEN on their next update.
+ */
+final class ChessGameAdapter extends TypeAdapter<ChessGame> {
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(game.toFen());
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return readFields(JsonParser.parseReader(in).getAsJsonObject());
+        }
+        try {
+            return ChessGame.fromFen(in.nextString());
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+
+    private static ChessGame readFields(JsonObject json) {
+        ChessGame game = new ChessGame();
+        JsonObject board = json.getAsJsonObject("board");
+        if (board != null && board.has("squares")) {
+            game.setBoard(readSquares(board.getAsJsonArray("squares")));
+        }
+        if (json.has("turn")) {
+            game.setTeamTurn(ChessGame.TeamColor.valueOf(json.get("turn").getAsString()));
+        }
+        if (json.has("castlingRights")) {
+            int enPassant = json.has("enPassantSquare") ? json.get("enPassantSquare").getAsInt() : -1;
+            game.setCastlingAndEnPassant(json.get("castlingRights").getAsInt(), enPassant);
+        }
+        return game;
+    }
+
+    /**
+     * Reads the original board layout, squares[row - 1][col - 1] holding a piece object or null
+     */
+    private static ChessBoard readSquares(JsonArray squares) {
+        ChessBoard board = new ChessBoard();
+        for (int row = 1; row <= squares.size(); row++) {
+            JsonArray columns = squares.get(row - 1).getAsJsonArray();
+            for (int col = 1; col <= columns.size(); col++) {
+                JsonElement piece = columns.get(col - 1);
+                if (!piece.isJsonNull()) {
+                    JsonObject fields = piece.getAsJsonObject();
+                    board.addPiece(ChessPosition.of(row, col), ChessPiece.of(
+                            ChessGame.TeamColor.valueOf(fields.get("pieceColor").getAsString()),
+                            ChessPiece.PieceType.valueOf(fields.get("pieceType").getAsString())));
+                }
+            }
+        }
+        return board;
+    }
+}
@@ -10,6 +10,9 @@ import java.util.Objects;
  */
 public class ChessMove {
 
+    private static final int PROMOTION_SLOTS = ChessPiece.PieceType.values().length + 1;
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * PROMOTION_SLOTS];
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -23,6 +26,46 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets a shared instance of a move. Moves are immutable, so move generation
+     * hands out the same object every time a move between two squares comes up
+     * instead of allocating a new one.
+     *
+     * @param startPosition the position the piece moves from
+     * @param endPosition the position the piece moves to
+     * @param promotionPiece the piece a pawn promotes to, or null
+     * @return the shared move, or a new one if either position is off the board
+     */
+    public static ChessMove of(
+            ChessPosition startPosition,
+            ChessPosition endPosition,
+            ChessPiece.PieceType promotionPiece) {
+        int from = Bitboards.square(startPosition);
+        int to = Bitboards.square(endPosition);
+        if (from < 0 || to < 0) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(from, to, promotionPiece);
+    }
+
+    /**
+     * @param from the start square index
+     * @param to the end square index
+     * @param promotionPiece the piece a pawn promotes to, or null
+     * @return the shared move between the two squares
+     */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int slot = promotionPiece == null ? 0 : promotionPiece.ordinal() + 1;
+        int index = (from * 64 + to) * PROMOTION_SLOTS + slot;
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            // Moves are immutable, so threads racing to fill a slot at worst both create one
+            move = new ChessMove(Bitboards.position(from), Bitboards.position(to), promotionPiece);
+            MOVES[index] = move;
+        }
+        return move;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -11,6 +11,8 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
+    private static final ChessPiece[][] PIECES = createPieces();
+
     private final ChessGame.TeamColor pieceColor;
     private final ChessPiece.PieceType pieceType;
 
@@ -19,6 +21,18 @@ public class ChessPiece {
         this.pieceType = type;
     }
 
+    /**
+     * Gets the shared instance of a piece. Pieces are immutable, so there only
+     * ever needs to be one of each of the twelve.
+     *
+     * @param pieceColor the piece's team
+     * @param type the kind of piece
+     * @return the shared piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal()][type.ordinal()];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -67,13 +81,48 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        return calculator().pieceMoves(board, myPosition, this.pieceColor);
+    }
+
+    /**
+     * Appends the moves this piece could make from a square to a list, with the
+     * same rules as pieceMoves
+     *
+     * @param board the current state of the chessboard
+     * @param square the square index the piece stands on
+     * @param moves the list to add the moves to
+     */
+    void generateMoves(ChessBoard board, int square, MoveList moves) {
+        calculator().generate(board, square, this.pieceColor, moves);
+    }
+
+    /**
+     * @param board the current state of the chessboard
+     * @param square the square index the piece stands on
+     * @return bitboard of the squares this piece could move to, by the rules of pieceMoves
+     */
+    long targets(ChessBoard board, int square) {
+        return calculator().targets(board, square, this.pieceColor);
+    }
+
+    private PieceMovesCalculator calculator() {
         return switch (pieceType) {
-            case KING -> new KingMovesCalculator().pieceMoves(board, myPosition, this.pieceColor);
-            case QUEEN -> new QueenMovesCalculator().pieceMoves(board, myPosition, this.pieceColor);
-            case BISHOP -> new BishopMovesCalculator().pieceMoves(board, myPosition, this.pieceColor);
-            case KNIGHT -> new KnightMovesCalculator().pieceMoves(board, myPosition, this.pieceColor);
-            case ROOK -> new RookMovesCalculator().pieceMoves(board, myPosition, this.pieceColor );
-            case PAWN -> new PawnMovesCalculator().pieceMoves(board, myPosition, this.pieceColor);
+            case KING -> KingMovesCalculator.INSTANCE;
+            case QUEEN -> QueenMovesCalculator.INSTANCE;
+            case BISHOP -> BishopMovesCalculator.INSTANCE;
+            case KNIGHT -> KnightMovesCalculator.INSTANCE;
+            case ROOK -> RookMovesCalculator.INSTANCE;
+            case PAWN -> PawnMovesCalculator.INSTANCE;
         };
     }
+
+    private static ChessPiece[][] createPieces() {
+        ChessPiece[][] pieces = new ChessPiece[ChessGame.TeamColor.values().length][PieceType.values().length];
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                pieces[color.ordinal()][type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+        return pieces;
+    }
 }
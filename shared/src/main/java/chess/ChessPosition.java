@@ -10,6 +10,14 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +26,21 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a square, so code that looks up positions
+     * repeatedly does not allocate new ones
+     *
+     * @param row the row, 1 to 8
+     * @param col the column, 1 to 8
+     * @return the shared position, or a new one if the square is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
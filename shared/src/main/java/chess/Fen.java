@@ -0,0 +1,207 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * All six fields are supported. Missing trailing fields default to white to
+ * move, castling rights inferred from the board, no en passant square and the
+ * move counters of a new game.
+ */
+final class Fen {
+
+    private Fen() {
+    }
+
+    /**
+     * @param fen the position in FEN
+     * @return a game set up in that position
+     * @throws IllegalArgumentException if a field cannot be read
+     */
+    static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessBoard board = parsePlacement(fields[0]);
+        ChessGame game = new ChessGame(board);
+        if (fields.length > 1) {
+            game.setTeamTurn(parseTurn(fields[1]));
+        }
+        if (fields.length > 2) {
+            int enPassant = fields.length > 3 ? parseSquare(fields[3]) : -1;
+            game.setCastlingAndEnPassant(parseCastling(fields[2]), enPassant);
+        } else {
+            game.setCastlingAndEnPassant(Castling.infer(board), -1);
+        }
+        if (fields.length > 5) {
+            game.setMoveCounters(parseCounter(fields[4]), parseCounter(fields[5]));
+        }
+        return game;
+    }
+
+    /**
+     * @param game the game to describe
+     * @return the game's position in FEN, all six fields
+     */
+    static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        appendPlacement(game.getBoard(), fen);
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        appendCastling(game.getCastlingRights(), fen);
+        fen.append(' ');
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + Bitboards.column(enPassant) - 1)).append(Bitboards.row(enPassant));
+        }
+        fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    /**
+     * @param board the board to describe
+     * @return the piece placement field of FEN for the board
+     */
+    static String formatPlacement(ChessBoard board) {
+        StringBuilder fen = new StringBuilder(72);
+        appendPlacement(board, fen);
+        return fen.toString();
+    }
+
+    /**
+     * @param placement the piece placement field of FEN
+     * @return a board with the pieces placed
+     * @throws IllegalArgumentException if the placement cannot be read
+     */
+    static ChessBoard parsePlacement(String placement) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        for (char c : placement.toCharArray()) {
+            if (c == '/') {
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                if (row < 1 || col > 8) {
+                    throw new IllegalArgumentException("Too many squares in FEN placement: " + placement);
+                }
+                board.addPiece(ChessPosition.of(row, col), parsePiece(c));
+                col++;
+            }
+        }
+        return board;
+    }
+
+    private static void appendPlacement(ChessBoard board, StringBuilder fen) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(pieceLetter(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+    }
+
+    private static void appendCastling(int rights, StringBuilder fen) {
+        if (rights == Castling.NONE) {
+            fen.append('-');
+            return;
+        }
+        if ((rights & Castling.WHITE_KING_SIDE) != 0) {
+            fen.append('K');
+        }
+        if ((rights & Castling.WHITE_QUEEN_SIDE) != 0) {
+            fen.append('Q');
+        }
+        if ((rights & Castling.BLACK_KING_SIDE) != 0) {
+            fen.append('k');
+        }
+        if ((rights & Castling.BLACK_QUEEN_SIDE) != 0) {
+            fen.append('q');
+        }
+    }
+
+    private static char pieceLetter(ChessPiece piece) {
+        char letter = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    private static ChessPiece parsePiece(char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown FEN piece: " + c);
+        };
+        return ChessPiece.of(color, type);
+    }
+
+    private static ChessGame.TeamColor parseTurn(String turn) {
+        return switch (turn) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Unknown FEN side to move: " + turn);
+        };
+    }
+
+    private static int parseCastling(String castling) {
+        if (castling.equals("-")) {
+            return Castling.NONE;
+        }
+        int rights = Castling.NONE;
+        for (char c : castling.toCharArray()) {
+            rights |= switch (c) {
+                case 'K' -> Castling.WHITE_KING_SIDE;
+                case 'Q' -> Castling.WHITE_QUEEN_SIDE;
+                case 'k' -> Castling.BLACK_KING_SIDE;
+                case 'q' -> Castling.BLACK_QUEEN_SIDE;
+                default -> throw new IllegalArgumentException("Unknown FEN castling right: " + c);
+            };
+        }
+        return rights;
+    }
+
+    private static int parseSquare(String square) {
+        if (square.equals("-")) {
+            return -1;
+        }
+        int result = square.length() == 2 ? Bitboards.square(square.charAt(1) - '0', square.charAt(0) - 'a' + 1) : -1;
+        if (result < 0) {
+            throw new IllegalArgumentException("Unknown FEN en passant square: " + square);
+        }
+        return result;
+    }
+
+    private static int parseCounter(String counter) {
+        try {
+            return Integer.parseInt(counter);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown FEN move counter: " + counter, e);
+        }
+    }
+}
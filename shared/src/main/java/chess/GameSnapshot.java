@@ -0,0 +1,133 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size binary encoding of a {@link ChessGame}'s position, for storage and
+ * transport where even FEN is larger than it needs to be.
+ * <p>
+ * A snapshot is {@value #SIZE} bytes, big-endian:
+ * <pre>
+ * 8 bytes   occupancy bitboard, bit n set when square n holds a piece
+ * 16 bytes  one 4-bit piece code per occupied square, in square order, high nibble
+ *           first; unused nibbles are zero. The code is color * 6 + piece type.
+ * 1 byte    bit 0 set when black is to move, bits 1-4 the castling rights
+ * 1 byte    en passant square, or -1
+ * 2 bytes   halfmove clock
+ * 2 bytes   fullmove number
+ * </pre>
+ * Encoding and decoding read and write the buffer directly; decoding creates only
+ * the decoded game and its board. Only boards with at most 32 pieces can be encoded,
+ * which includes every position reachable from the start.
+ */
+public final class GameSnapshot {
+
+    /**
+     * Number of bytes in a snapshot
+     */
+    public static final int SIZE = 30;
+
+    private static final int MAX_PIECES = 32;
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of a game at the buffer's position, advancing it by {@link #SIZE}
+     *
+     * @param game the game to encode
+     * @param out the buffer to write to
+     * @throws IllegalArgumentException if the board holds more than 32 pieces
+     * @throws java.nio.BufferOverflowException if the buffer has fewer than SIZE bytes left
+     */
+    public static void encode(ChessGame game, ByteBuffer out) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.occupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces for a snapshot: " + Long.bitCount(occupied));
+        }
+        out.putLong(occupied);
+
+        int written = 0;
+        int pending = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int code = board.pieceCode(Long.numberOfTrailingZeros(squares));
+            if ((written & 1) == 0) {
+                pending = code << 4;
+            } else {
+                out.put((byte) (pending | code));
+            }
+            written++;
+        }
+        if ((written & 1) != 0) {
+            out.put((byte) pending);
+            written++;
+        }
+        for (; written < MAX_PIECES; written += 2) {
+            out.put((byte) 0);
+        }
+
+        int state = game.getCastlingRights() << 1;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            state |= 1;
+        }
+        out.put((byte) state);
+        out.put((byte) game.getEnPassantSquare());
+        out.putShort((short) game.getHalfmoveClock());
+        out.putShort((short) game.getFullmoveNumber());
+    }
+
+    /**
+     * Reads a snapshot at the buffer's position, advancing it by {@link #SIZE}
+     *
+     * @param in the buffer to read from
+     * @return a new game in the encoded position
+     * @throws IllegalArgumentException if the snapshot does not describe a position
+     * @throws java.nio.BufferUnderflowException if the buffer has fewer than SIZE bytes left
+     */
+    public static ChessGame decode(ByteBuffer in) {
+        long occupied = in.getLong();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces in snapshot: " + Long.bitCount(occupied));
+        }
+        ChessBoard board = new ChessBoard();
+        int start = in.position();
+        int read = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int packed = in.get(start + read / 2);
+            int code = (read & 1) == 0 ? (packed >> 4) & 0xF : packed & 0xF;
+            if (code >= 12) {
+                throw new IllegalArgumentException("Unknown piece code in snapshot: " + code);
+            }
+            board.setPieceCode(Long.numberOfTrailingZeros(squares), code);
+            read++;
+        }
+        in.position(start + MAX_PIECES / 2);
+
+        ChessGame game = new ChessGame(board);
+        int state = in.get();
+        game.setTeamTurn((state & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        int enPassant = in.get();
+        game.setCastlingAndEnPassant((state >> 1) & Castling.ALL, enPassant < 0 ? -1 : enPassant & 63);
+        game.setMoveCounters(in.getShort() & 0xFFFF, in.getShort() & 0xFFFF);
+        return game;
+    }
+
+    /**
+     * @param game the game to encode
+     * @return a new array holding the game's snapshot
+     */
+    public static byte[] toBytes(ChessGame game) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        encode(game, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * @param bytes a snapshot written by {@link #toBytes}
+     * @return a new game in the encoded position
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+}
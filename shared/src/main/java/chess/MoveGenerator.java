@@ -0,0 +1,286 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Generates legal moves for a whole side in one pass.
+ * <p>
+ * Instead of playing each pseudo-legal move and asking whether the king is then
+ * in check, the generator works out once per call which enemy pieces give check
+ * and which friendly pieces are pinned to their king, and turns that into a
+ * mask of allowed destination squares per piece:
+ * <ul>
+ * <li>in double check only the king may move;</li>
+ * <li>in single check other pieces must capture the checker or block between it and the king;</li>
+ * <li>a pinned piece may only move along the line through its king and the pinning piece.</li>
+ * </ul>
+ * King moves are checked against the enemy's attacks with the king lifted off the
+ * board, so the king cannot step back along the line of a slider checking it.
+ * En passant captures remove two pieces from one line at once, which the pin
+ * masks do not describe, so the rare en passant move is tried on the board.
+ * A side without a king has no check to escape, so all of its moves are legal.
+ */
+final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends the legal moves of some of a team's pieces to a list
+     *
+     * @param board the current state of the chessboard
+     * @param color the team to move
+     * @param from bitboard of that team's pieces to generate moves for
+     * @param castlingRights the game's castling rights
+     * @param enPassantSquare the square the team may capture en passant onto, or -1
+     * @param moves the list to add the moves to
+     */
+    static void generate(ChessBoard board, TeamColor color, long from, int castlingRights, int enPassantSquare,
+                         MoveList moves) {
+        from &= board.pieces(color);
+        int king = board.kingSquare(color);
+        if (king < 0) {
+            generatePseudoLegal(board, from, moves);
+            generateEnPassant(board, color, from, enPassantSquare, -1, moves);
+            return;
+        }
+        TeamColor enemy = color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+
+        long kingBit = Bitboards.bit(king);
+        if ((from & kingBit) != 0) {
+            generateKingMoves(board, king, enemy, moves);
+            KingMovesCalculator.INSTANCE.generateCastles(board, king, color, castlingRights, moves);
+        }
+        generateEnPassant(board, color, from, enPassantSquare, king, moves);
+
+        long checkers = board.attackersOf(king, enemy);
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+        long allowed = -1L;
+        if (checkers != 0) {
+            allowed = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinnedPieces(board, king, color, enemy);
+
+        long pieces = from & ~kingBit;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            long mask = allowed;
+            if ((pinned & Bitboards.bit(square)) != 0) {
+                mask &= Bitboards.line(king, square);
+            }
+            if (mask != 0) {
+                int first = moves.size();
+                board.getPiece(square).generateMoves(board, square, moves);
+                if (mask != -1L) {
+                    keepTargets(moves, first, mask);
+                }
+            }
+            pieces &= pieces - 1;
+        }
+    }
+
+
+    /**
+     * Determines whether a team has at least one legal move, stopping at the first
+     * one found. Works on target bitboards only, without building any moves, and
+     * tries the king first, then captures by the other pieces, then their quiet
+     * moves, since a king step or a capture is the likeliest way out of check.
+     *
+     * @param board the current state of the chessboard
+     * @param color the team to look for a move for
+     * @param enPassantSquare the square the team may capture en passant onto, or -1
+     * @return true if the team can make a legal move
+     */
+    static boolean hasLegalMove(ChessBoard board, TeamColor color, int enPassantSquare) {
+        long own = board.pieces(color);
+        int king = board.kingSquare(color);
+        if (king < 0) {
+            for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                if (board.getPiece(square).targets(board, square) != 0) {
+                    return true;
+                }
+            }
+            return hasEnPassant(board, color, own, enPassantSquare, -1);
+        }
+        TeamColor enemy = color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+
+        long kingBit = Bitboards.bit(king);
+        long occupied = board.occupied() & ~kingBit;
+        for (long steps = Bitboards.kingTargetsOf(king) & ~own; steps != 0; steps &= steps - 1) {
+            if (!board.isSquareAttacked(Long.numberOfTrailingZeros(steps), enemy, occupied)) {
+                return true;
+            }
+        }
+
+        long checkers = board.attackersOf(king, enemy);
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        long allowed = -1L;
+        if (checkers != 0) {
+            allowed = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinnedPieces(board, king, color, enemy);
+        long others = own & ~kingBit;
+
+        long enemies = board.pieces(enemy);
+        if (anyTarget(board, others, king, pinned, allowed & enemies)) {
+            return true;
+        }
+        // Castling is never the only legal move: if it is legal, so is the king's step towards the rook
+        return anyTarget(board, others, king, pinned, allowed & ~enemies)
+                || hasEnPassant(board, color, others, enPassantSquare, king);
+    }
+
+    /**
+     * @return true if any of the pieces can reach a square in the mask without
+     * leaving its pin line
+     */
+    private static boolean anyTarget(ChessBoard board, long pieces, int king, long pinned, long mask) {
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            long allowed = mask;
+            if ((pinned & Bitboards.bit(square)) != 0) {
+                allowed &= Bitboards.line(king, square);
+            }
+            if (allowed != 0 && (board.getPiece(square).targets(board, square) & allowed) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void generatePseudoLegal(ChessBoard board, long pieces, MoveList moves) {
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            board.getPiece(square).generateMoves(board, square, moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Appends the legal en passant captures of some of a team's pawns
+     *
+     * @param king the team's king square, or -1 if it has none
+     */
+    private static void generateEnPassant(ChessBoard board, TeamColor color, long from, int enPassantSquare,
+                                          int king, MoveList moves) {
+        if (enPassantSquare < 0) {
+            return;
+        }
+        long pawns = capturingPawns(board, color, from, enPassantSquare);
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            if (king < 0 || enPassantIsLegal(board, color, square, enPassantSquare)) {
+                PawnMovesCalculator.INSTANCE.generateEnPassant(square, color, enPassantSquare, moves);
+            }
+        }
+    }
+
+    private static boolean hasEnPassant(ChessBoard board, TeamColor color, long from, int enPassantSquare, int king) {
+        if (enPassantSquare < 0) {
+            return false;
+        }
+        long pawns = capturingPawns(board, color, from, enPassantSquare);
+        for (; pawns != 0; pawns &= pawns - 1) {
+            if (king < 0 || enPassantIsLegal(board, color, Long.numberOfTrailingZeros(pawns), enPassantSquare)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return bitboard of the team's pawns, among the given pieces, that attack the en passant square
+     */
+    private static long capturingPawns(ChessBoard board, TeamColor color, long from, int enPassantSquare) {
+        TeamColor enemy = color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        // A pawn attacks the square exactly when an enemy pawn on the square would attack it
+        return Bitboards.pawnAttacks(Bitboards.bit(enPassantSquare), enemy)
+                & board.pieces(color, ChessPiece.PieceType.PAWN) & from;
+    }
+
+    /**
+     * Plays an en passant capture on the board, checks the king, and takes it back
+     */
+    private static boolean enPassantIsLegal(ChessBoard board, TeamColor color, int from, int to) {
+        int capturedSquare = enPassantCaptureSquare(to, color);
+        ChessPiece pawn = board.getPiece(from);
+        ChessPiece captured = board.getPiece(capturedSquare);
+        board.setPiece(from, null);
+        board.setPiece(capturedSquare, null);
+        board.setPiece(to, pawn);
+        int king = board.kingSquare(color);
+        boolean legal = !board.isSquareAttacked(king, color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+        board.setPiece(to, null);
+        board.setPiece(capturedSquare, captured);
+        board.setPiece(from, pawn);
+        return legal;
+    }
+
+    /**
+     * @param enPassantSquare the square the capturing pawn lands on
+     * @param color the color of the capturing pawn
+     * @return the square of the pawn captured en passant
+     */
+    static int enPassantCaptureSquare(int enPassantSquare, TeamColor color) {
+        return color == TeamColor.WHITE ? enPassantSquare - 8 : enPassantSquare + 8;
+    }
+
+    private static void generateKingMoves(ChessBoard board, int king, TeamColor enemy, MoveList moves) {
+        int first = moves.size();
+        board.getPiece(king).generateMoves(board, king, moves);
+        long occupied = board.occupied() & ~Bitboards.bit(king);
+
+        int kept = first;
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (!board.isSquareAttacked(PackedMove.to(move), enemy, occupied)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    /**
+     * Finds the friendly pieces that are the only piece between their king and an
+     * enemy slider on the same line
+     */
+    private static long pinnedPieces(ChessBoard board, int king, TeamColor color, TeamColor enemy) {
+        long enemies = board.pieces(enemy);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long straight = board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens;
+        long diagonal = board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens;
+
+        // Slide from the king through friendly pieces to the first enemy on each line
+        long pinners = (SlidingAttacks.rook(king, enemies) & straight)
+                | (SlidingAttacks.bishop(king, enemies) & diagonal);
+        long own = board.pieces(color);
+        long pinned = 0L;
+        while (pinners != 0) {
+            long between = Bitboards.between(king, Long.numberOfTrailingZeros(pinners)) & board.occupied();
+            if (Long.bitCount(between) == 1 && (between & own) != 0) {
+                pinned |= between;
+            }
+            pinners &= pinners - 1;
+        }
+        return pinned;
+    }
+
+    /**
+     * Drops the moves from an index onwards whose destination is outside a mask
+     */
+    private static void keepTargets(MoveList moves, int first, long mask) {
+        int kept = first;
+        for (int i = first; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if ((mask & Bitboards.bit(PackedMove.to(move))) != 0) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+}
@@ -0,0 +1,103 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable list of moves encoded with {@link PackedMove}. Backed by an int
+ * array that is kept between uses, so clearing and refilling a list allocates
+ * nothing once it has grown to fit.
+ */
+public final class MoveList {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from an index onwards
+     *
+     * @param size the number of moves to keep
+     */
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Overwrites a move, for filtering the list in place
+     */
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * Adds a move from one square to each square of a bitboard
+     *
+     * @param from the start square index
+     * @param targets bitboard of end squares
+     * @param enemies bitboard of squares holding pieces the moves capture
+     */
+    void addAll(int from, long targets, long enemies) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            add(PackedMove.of(from, to, (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+            targets &= targets - 1;
+        }
+    }
+
+    /**
+     * @return the moves as ChessMove objects, in list order
+     */
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(PackedMove.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+}
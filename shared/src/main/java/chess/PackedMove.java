@@ -0,0 +1,145 @@
+package chess;
+
+/**
+ * Encodes a move in the low 16 bits of an int, so move lists can be plain int
+ * arrays instead of collections of {@link ChessMove} objects.
+ * <pre>
+ * bits  0-5   start square index (a1 = 0, h8 = 63)
+ * bits  6-11  end square index
+ * bits 12-15  flags: capture bit, promotion bit, and either the promotion
+ *             piece or the kind of special move
+ * </pre>
+ */
+public final class PackedMove {
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int FLAGS_SHIFT = 12;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN
+    };
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from the start square index
+     * @param to the end square index
+     * @param flags the move's flags
+     * @return the encoded move
+     */
+    public static int of(int from, int to, int flags) {
+        return from | to << TO_SHIFT | flags << FLAGS_SHIFT;
+    }
+
+    /**
+     * @param from the start square index
+     * @param to the end square index
+     * @param type the piece the pawn promotes to
+     * @param capture whether the promotion captures a piece
+     * @return the encoded promotion
+     */
+    public static int promotion(int from, int to, ChessPiece.PieceType type, boolean capture) {
+        int flags = PROMOTION | promotionCode(type);
+        if (capture) {
+            flags |= CAPTURE;
+        }
+        return of(from, to, flags);
+    }
+
+    /**
+     * Encodes a move as played on a board. The board supplies the flags a
+     * ChessMove does not carry: a capture, a pawn's double push or en passant
+     * capture, and a king's two-square castling step.
+     *
+     * @param board the board the move is played on
+     * @param move the move to encode
+     * @return the encoded move, or -1 if either position is off the board
+     */
+    public static int of(ChessBoard board, ChessMove move) {
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        if (from < 0 || to < 0) {
+            return -1;
+        }
+        boolean capture = board.getPiece(to) != null;
+        if (move.getPromotionPiece() != null) {
+            return promotion(from, to, move.getPromotionPiece(), capture);
+        }
+        if (capture) {
+            return of(from, to, CAPTURE);
+        }
+        ChessPiece piece = board.getPiece(from);
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (Math.abs(to - from) == 16) {
+                return of(from, to, DOUBLE_PAWN_PUSH);
+            }
+            if (Bitboards.column(from) != Bitboards.column(to)) {
+                return of(from, to, EN_PASSANT);
+            }
+        }
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            return of(from, to, to > from ? KING_CASTLE : QUEEN_CASTLE);
+        }
+        return of(from, to, QUIET);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return move >>> TO_SHIFT & SQUARE_MASK;
+    }
+
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * @param move an encoded move
+     * @return the piece the move promotes to, or null if it is not a promotion
+     */
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        if (!isPromotion(move)) {
+            return null;
+        }
+        return PROMOTIONS[flags(move) & 3];
+    }
+
+    /**
+     * @param move an encoded move
+     * @return the same move as a shared ChessMove
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotionPiece(move));
+    }
+
+    private static int promotionCode(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KNIGHT -> 0;
+            case BISHOP -> 1;
+            case ROOK -> 2;
+            case QUEEN -> 3;
+            default -> throw new IllegalArgumentException("Cannot promote to " + type);
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perft (performance test) for the move generator: counts the leaf nodes of the
+ * legal move tree to a fixed depth. Comparing the counts against published values
+ * verifies the generator, and timing them measures it.
+ * <p>
+ * Run from the command line with
+ * <pre>
+ * java -cp shared.jar chess.Perft                      run the bundled suite
+ * java -cp shared.jar chess.Perft 5                    perft 5 from the start position
+ * java -cp shared.jar chess.Perft --divide 3 "FEN"     per-move counts for a position
+ * </pre>
+ */
+public final class Perft {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Standard positions with their published node counts
+     */
+    public static final List<Position> STANDARD_POSITIONS = List.of(
+            new Position("start", START_FEN, 20, 400, 8_902, 197_281, 4_865_609),
+            new Position("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2_039, 97_862, 4_085_603),
+            new Position("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2_812, 43_238, 674_624),
+            new Position("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9_467, 422_333),
+            new Position("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1_486, 62_379, 2_103_487),
+            new Position("position 6",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2_079, 89_890, 3_894_594),
+            new Position("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 24, 496, 9_483, 182_838)
+    );
+
+    private Perft() {
+    }
+
+    /**
+     * A named position and its expected node counts
+     *
+     * @param name short description of the position
+     * @param fen the position in FEN
+     * @param nodes expected node count at depth 1, 2, ...
+     */
+    public record Position(String name, String fen, long... nodes) {
+        public ChessGame game() {
+            return Fen.parse(fen);
+        }
+
+        public int maxDepth() {
+            return nodes.length;
+        }
+
+        public long expected(int depth) {
+            return nodes[depth - 1];
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree below the game's current position.
+     * The game is walked with applyMove/unmakeMove and is left as it was found.
+     *
+     * @param game the game to count from
+     * @param depth number of plies to search
+     * @return number of positions reached at that depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, moveLists(depth));
+    }
+
+    /**
+     * Splits a perft count by first move, for narrowing down where two move
+     * generators disagree.
+     *
+     * @param game the game to count from
+     * @param depth number of plies to search, at least 1
+     * @return node count below each legal move, in generation order
+     * @throws IllegalArgumentException if depth is less than 1
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("divide needs a depth of at least 1, got " + depth);
+        }
+        MoveList[] lists = moveLists(depth);
+        MoveList moves = lists[depth];
+        game.legalMoves(moves);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            game.applyMove(moves.get(i));
+            counts.put(PackedMove.toChessMove(moves.get(i)), perft(game, depth - 1, lists));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * @param lists one reusable move list per remaining depth, so the search
+     *              allocates no lists of its own
+     */
+    private static long perft(ChessGame game, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth];
+        moves.clear();
+        game.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.applyMove(moves.get(i));
+            nodes += perft(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the depth argument, or 0 if it is not a number
+     */
+    private static int parseDepth(String arg) {
+        try {
+            return Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static MoveList[] moveLists(int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 0) + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.exit(runSuite() ? 0 : 1);
+        }
+        boolean divide = args[0].equals("--divide");
+        int first = divide ? 1 : 0;
+        int depth = args.length > first ? parseDepth(args[first]) : 0;
+        if (depth < 1) {
+            System.err.println("usage: Perft [--divide] <depth> [fen]");
+            System.exit(2);
+        }
+        String fen = args.length > first + 1 ? args[first + 1] : START_FEN;
+        ChessGame game = Fen.parse(fen);
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                System.out.printf("%s: %d%n", notation(entry.getKey()), entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = perft(game, depth);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("perft(%d) = %d in %d ms (%s nodes/s)%n",
+                depth, nodes, elapsed / 1_000_000, nodesPerSecond(nodes, elapsed));
+    }
+
+    private static boolean runSuite() {
+        boolean passed = true;
+        for (Position position : STANDARD_POSITIONS) {
+            for (int depth = 1; depth <= position.maxDepth(); depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(position.game(), depth);
+                long elapsed = System.nanoTime() - start;
+                boolean ok = nodes == position.expected(depth);
+                passed &= ok;
+                System.out.printf("%-12s depth %d: %,12d %s (%s nodes/s)%n", position.name(), depth, nodes,
+                        ok ? "ok" : "FAILED, expected " + position.expected(depth), nodesPerSecond(nodes, elapsed));
+            }
+        }
+        return passed;
+    }
+
+    private static String nodesPerSecond(long nodes, long nanos) {
+        return String.format("%,d", nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos);
+    }
+
+    private static String notation(ChessMove move) {
+        String promotion = "";
+        if (move.getPromotionPiece() != null) {
+            promotion = switch (move.getPromotionPiece()) {
+                case QUEEN -> "q";
+                case ROOK -> "r";
+                case BISHOP -> "b";
+                case KNIGHT -> "n";
+                default -> "";
+            };
+        }
+        return square(move.getStartPosition()) + square(move.getEndPosition()) + promotion;
+    }
+
+    private static String square(ChessPosition position) {
+        return "" + (char) ('a' + position.getColumn() - 1) + position.getRow();
+    }
+}
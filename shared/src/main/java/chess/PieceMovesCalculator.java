@@ -1,76 +1,48 @@
 package chess;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.ArrayList;
 
 /**
  * Interface outline for each class of PieceMovesCalculator
+ * <p>
+ * Calculators work on the board's bitboards: each one builds a bitboard of the
+ * squares the piece can reach and appends them to a {@link MoveList} as
+ * {@link PackedMove} ints, so generating moves allocates nothing.
+ * {@link #pieceMoves} wraps that in {@link ChessMove} objects for callers that
+ * want them.
+ * <p>
+ * Calculators hold no state, so each one has a single shared INSTANCE.
  */
 public interface PieceMovesCalculator {
 
-    Collection<ChessMove> pieceMoves(
-            ChessBoard board, ChessPosition myPosition, ChessGame.TeamColor currColor
-    );
-
     /**
-     * Determines if a piece can move to a given position.
+     * Gets the squares the piece on a square can move to
+     *
      * @param board the current state of the chessboard
-     * @param position the position to check
+     * @param square the square index of the piece
      * @param currColor the color of the piece
-     * @param canCapture whether the piece can capture another piece
-     * @return boolean indicating if the piece can move to the position
+     * @return bitboard of the squares the piece can reach
      */
-    default boolean isNotBlocked(
-            ChessBoard board,
-            ChessPosition position,
-            ChessGame.TeamColor currColor,
-            boolean canCapture
-    ) {
-        if (position.getRow() < 1 || position.getRow() > 8) {
-            return false;
-        } else if (position.getColumn() < 1 || position.getColumn() > 8) {
-            return false;
-        } else if (board.getPiece(position) == null) {
-            return true;
-        } else {
-            return board.getPiece(position).getTeamColor() != currColor && canCapture;
-        }
-    }
+    long targets(ChessBoard board, int square, ChessGame.TeamColor currColor);
 
     /**
-     * Gets the possible moves for a Rook or Bishop in a given direction.
+     * Appends the moves of the piece on a square to a list
      *
      * @param board the current state of the chessboard
-     * @param myPosition the current position of the piece
+     * @param square the square index of the piece
      * @param currColor the color of the piece
-     * @param rowIncrement the row increment for the direction
-     * @param colIncrement the column increment for the direction
-     * @return a collection of possible moves
+     * @param moves the list to add the moves to
      */
-    default Collection<ChessMove> getRookAndBishopMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor,
-            int rowIncrement,
-            int colIncrement
+    default void generate(ChessBoard board, int square, ChessGame.TeamColor currColor, MoveList moves) {
+        moves.addAll(square, targets(board, square, currColor), board.occupied());
+    }
+
+    default Collection<ChessMove> pieceMoves(
+            ChessBoard board, ChessPosition myPosition, ChessGame.TeamColor currColor
     ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        ChessPosition newPosition = new ChessPosition(
-                myPosition.getRow() + rowIncrement, myPosition.getColumn() + colIncrement
-        );
-        while (isNotBlocked(board, newPosition, currColor, true)) {
-            if (board.getPiece(newPosition) != null && board.getPiece(newPosition).getTeamColor() != currColor) {
-                moves.add(new ChessMove(myPosition, newPosition, null));
-                break;
-            }
-            moves.add(new ChessMove(myPosition, newPosition, null));
-            newPosition = new ChessPosition(
-                    newPosition.getRow() + rowIncrement,
-                    newPosition.getColumn() + colIncrement
-            );
-        }
-        return moves;
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(myPosition), currColor, moves);
+        return moves.toChessMoves();
     }
 }
 
@@ -79,42 +51,54 @@ public interface PieceMovesCalculator {
  * Calculates the moves available for the King piece
  */
 class KingMovesCalculator implements PieceMovesCalculator {
-    @Override
-    public Collection<ChessMove> pieceMoves(
-            ChessBoard board, ChessPosition myPosition, ChessGame.TeamColor currColor
-    ) {
 
-        List<ChessMove> moves = new ArrayList<>();
+    static final KingMovesCalculator INSTANCE = new KingMovesCalculator();
 
-        int currRow = myPosition.getRow();
-        int currCol = myPosition.getColumn();
+    private KingMovesCalculator() {
+    }
 
-        final Collection<ChessPosition> positions = getKingPositions(currRow, currCol);
-        for (ChessPosition newPosition : positions) {
-            if (isNotBlocked(board, newPosition, currColor, true)) {
-                moves.add(new ChessMove(myPosition, newPosition, null));
-            }
-        }
-        return moves;
+    @Override
+    public long targets(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        return Bitboards.kingTargetsOf(square) & ~board.pieces(currColor);
     }
 
     /**
-     * Gets the possible positions for a King to move to.
-     * @param currRow the current row of the King
-     * @param currCol the current column of the King
-     * @return a list of positions the King can move to
+     * Adds the castling moves a king on its home square has. Castling needs the
+     * right to castle on that side, a rook on its corner, empty squares between
+     * them, and no enemy attack on the king's square, the square it passes over or
+     * the square it lands on.
+     *
+     * @param board the current state of the chessboard
+     * @param square the square index of the king
+     * @param currColor the color of the king
+     * @param rights the game's castling rights
+     * @param moves the list to add the moves to
      */
-    private static Collection<ChessPosition> getKingPositions(int currRow, int currCol) {
-        final ChessPosition up = new ChessPosition(currRow, currCol + 1);
-        final ChessPosition down = new ChessPosition(currRow, currCol - 1);
-        final ChessPosition left = new ChessPosition(currRow - 1, currCol);
-        final ChessPosition right = new ChessPosition(currRow + 1, currCol);
-        final ChessPosition upRight = new ChessPosition(currRow + 1, currCol + 1);
-        final ChessPosition upLeft = new ChessPosition(currRow - 1, currCol + 1);
-        final ChessPosition downRight = new ChessPosition(currRow + 1, currCol - 1);
-        final ChessPosition downLeft = new ChessPosition(currRow - 1, currCol - 1);
-
-        return List.of(up, down, left, right, upRight, upLeft, downRight, downLeft);
+    void generateCastles(ChessBoard board, int square, ChessGame.TeamColor currColor, int rights, MoveList moves) {
+        int home = Castling.kingHome(currColor);
+        if (square != home || (rights & (Castling.kingSide(currColor) | Castling.queenSide(currColor))) == 0) {
+            return;
+        }
+        ChessGame.TeamColor enemy = currColor == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (board.isSquareAttacked(home, enemy)) {
+            return;
+        }
+        long rooks = board.pieces(currColor, ChessPiece.PieceType.ROOK);
+        if ((rights & Castling.kingSide(currColor)) != 0
+                && (rooks & Bitboards.bit(home + 3)) != 0
+                && (board.occupied() & Bitboards.between(home, home + 3)) == 0
+                && !board.isSquareAttacked(home + 1, enemy)
+                && !board.isSquareAttacked(home + 2, enemy)) {
+            moves.add(PackedMove.of(home, home + 2, PackedMove.KING_CASTLE));
+        }
+        if ((rights & Castling.queenSide(currColor)) != 0
+                && (rooks & Bitboards.bit(home - 4)) != 0
+                && (board.occupied() & Bitboards.between(home, home - 4)) == 0
+                && !board.isSquareAttacked(home - 1, enemy)
+                && !board.isSquareAttacked(home - 2, enemy)) {
+            moves.add(PackedMove.of(home, home - 2, PackedMove.QUEEN_CASTLE));
+        }
     }
 }
 
@@ -122,13 +106,15 @@ class KingMovesCalculator implements PieceMovesCalculator {
  * Calculates the moves available for the Queen piece
  */
 class QueenMovesCalculator implements PieceMovesCalculator {
-    @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessGame.TeamColor currColor) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        moves.addAll(new RookMovesCalculator().pieceMoves(board, myPosition, currColor));
-        moves.addAll(new BishopMovesCalculator().pieceMoves(board, myPosition, currColor));
 
-        return moves;
+    static final QueenMovesCalculator INSTANCE = new QueenMovesCalculator();
+
+    private QueenMovesCalculator() {
+    }
+
+    @Override
+    public long targets(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        return SlidingAttacks.queen(square, board.occupied()) & ~board.pieces(currColor);
     }
 }
 
@@ -136,24 +122,15 @@ class QueenMovesCalculator implements PieceMovesCalculator {
  * Calculates the moves available for the Bishop piece
  */
 class BishopMovesCalculator implements PieceMovesCalculator {
+
+    static final BishopMovesCalculator INSTANCE = new BishopMovesCalculator();
+
+    private BishopMovesCalculator() {
+    }
+
     @Override
-    public Collection<ChessMove> pieceMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor
-    ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        // up right diagonal moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, 1, 1));
-        // up left diagonal moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, 1, -1));
-        // down right diagonal moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, -1, 1));
-        // down left diagonal moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, -1, -1));
-
-        return moves;
+    public long targets(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        return SlidingAttacks.bishop(square, board.occupied()) & ~board.pieces(currColor);
     }
 }
 
@@ -161,27 +138,15 @@ class BishopMovesCalculator implements PieceMovesCalculator {
  * Calculates the moves available for the Knight piece
  */
 class KnightMovesCalculator implements PieceMovesCalculator {
+
+    static final KnightMovesCalculator INSTANCE = new KnightMovesCalculator();
+
+    private KnightMovesCalculator() {
+    }
+
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessGame.TeamColor currColor) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        ChessPosition[] knightPositions = {
-                new ChessPosition(myPosition.getRow() + 2, myPosition.getColumn() + 1),
-                new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() + 2),
-                new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() + 2),
-                new ChessPosition(myPosition.getRow() - 2, myPosition.getColumn() + 1),
-                new ChessPosition(myPosition.getRow() - 2, myPosition.getColumn() - 1),
-                new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() - 2),
-                new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() - 2),
-                new ChessPosition(myPosition.getRow() + 2, myPosition.getColumn() - 1)
-        };
-
-        for (ChessPosition position : knightPositions) {
-            if (isNotBlocked(board, position, currColor, true)) {
-                moves.add(new ChessMove(myPosition, position, null));
-            }
-        }
-        return moves;
+    public long targets(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        return Bitboards.knightTargetsOf(square) & ~board.pieces(currColor);
     }
 }
 
@@ -189,24 +154,15 @@ class KnightMovesCalculator implements PieceMovesCalculator {
  * Calculates the moves available for the Rook piece
  */
 class RookMovesCalculator implements PieceMovesCalculator {
+
+    static final RookMovesCalculator INSTANCE = new RookMovesCalculator();
+
+    private RookMovesCalculator() {
+    }
+
     @Override
-    public Collection<ChessMove> pieceMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor
-    ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        // up moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, 1, 0));
-        // right moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, 0, 1));
-        // down moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, -1, 0));
-        // left moves
-        moves.addAll(getRookAndBishopMoves(board, myPosition, currColor, 0, -1));
-
-        return moves;
+    public long targets(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        return SlidingAttacks.rook(square, board.occupied()) & ~board.pieces(currColor);
     }
 }
 
@@ -214,157 +170,110 @@ class RookMovesCalculator implements PieceMovesCalculator {
  * Calculates the moves available for the Pawn piece
  */
 class PawnMovesCalculator implements PieceMovesCalculator {
+
+    static final PawnMovesCalculator INSTANCE = new PawnMovesCalculator();
+
+    private static final long WHITE_START_ROW = Bitboards.RANK_1 << 8;
+    private static final long BLACK_START_ROW = Bitboards.RANK_8 >>> 8;
+    private static final long PROMOTION_ROWS = Bitboards.RANK_1 | Bitboards.RANK_8;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT
+    };
+
+    private PawnMovesCalculator() {
+    }
+
     @Override
-    public Collection<ChessMove> pieceMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor
-    ) {
-        if (currColor == ChessGame.TeamColor.WHITE) {
-            return getWhitePawnMoves(board, myPosition, currColor);
-        } else {
-            return getBlackPawnMoves(board, myPosition, currColor);
-        }
+    public long targets(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        return getPushes(board, square, currColor) | getCaptures(board, square, currColor);
     }
 
-    /**
-     * Gets the possible moves for a white pawn.
-     *
-     * @param board the current state of the chessboard
-     * @param myPosition the current position of the pawn
-     * @param currColor the color of the pawn
-     * @return a collection of possible moves
-     */
-    private Collection<ChessMove> getWhitePawnMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor
-    ) {
-        ChessPosition[] positions = {
-                new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn()),
-                new ChessPosition(myPosition.getRow() + 2, myPosition.getColumn()),
-                new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() - 1),
-                new ChessPosition(myPosition.getRow() + 1, myPosition.getColumn() + 1)
-        };
-
-        return new ArrayList<>(getMoves(board, myPosition, currColor, positions));
+    @Override
+    public void generate(ChessBoard board, int square, ChessGame.TeamColor currColor, MoveList moves) {
+        long captures = getCaptures(board, square, currColor);
+        long pushes = getPushes(board, square, currColor);
+        if (((captures | pushes) & PROMOTION_ROWS) != 0) {
+            addPromotions(square, captures, true, moves);
+            addPromotions(square, pushes, false, moves);
+            return;
+        }
+        moves.addAll(square, captures, captures);
+        while (pushes != 0) {
+            int to = Long.numberOfTrailingZeros(pushes);
+            int flags = Math.abs(to - square) == 16 ? PackedMove.DOUBLE_PAWN_PUSH : PackedMove.QUIET;
+            moves.add(PackedMove.of(square, to, flags));
+            pushes &= pushes - 1;
+        }
     }
 
     /**
-     * Gets the possible moves for a black pawn.
+     * Adds the en passant capture onto the target square, if the pawn attacks it.
+     * Whether the capture exposes the pawn's own king is left to the caller.
      *
-     * @param board the current state of the chessboard
-     * @param myPosition the current position of the pawn
+     * @param square the square index of the pawn
      * @param currColor the color of the pawn
-     * @return a collection of possible moves
+     * @param enPassantSquare the square an enemy pawn just skipped over, or -1
+     * @param moves the list to add the move to
      */
-    private Collection<ChessMove> getBlackPawnMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor
-    ) {
-        ChessPosition[] positions = {
-                new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn()),
-                new ChessPosition(myPosition.getRow() - 2, myPosition.getColumn()),
-                new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() + 1),
-                new ChessPosition(myPosition.getRow() - 1, myPosition.getColumn() - 1)
-        };
-
-        return new ArrayList<>(getMoves(board, myPosition, currColor, positions));
+    void generateEnPassant(int square, ChessGame.TeamColor currColor, int enPassantSquare, MoveList moves) {
+        if (enPassantSquare >= 0
+                && (Bitboards.pawnAttacks(Bitboards.bit(square), currColor) & Bitboards.bit(enPassantSquare)) != 0) {
+            moves.add(PackedMove.of(square, enPassantSquare, PackedMove.EN_PASSANT));
+        }
     }
 
     /**
-     * Gets the possible moves for a pawn.
+     * Gets the empty squares a pawn can advance to, including the double step from its start row.
      *
      * @param board the current state of the chessboard
-     * @param myPosition the current position of the pawn
+     * @param square the square index of the pawn
      * @param currColor the color of the pawn
-     * @param positions the possible positions the pawn can move to
-     * @return a collection of possible moves
+     * @return bitboard of squares the pawn can push to
      */
-    private Collection<ChessMove> getMoves(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor,
-            ChessPosition[] positions
-    ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        ChessPosition forwardOne = positions[0];
-        ChessPosition forwardTwo = positions[1];
-        ChessPosition forwardLeft = positions[2];
-        ChessPosition forwardRight = positions[3];
-
-        boolean whiteStart = currColor == ChessGame.TeamColor.WHITE && myPosition.getRow() == 2;
-        boolean blackStart = currColor == ChessGame.TeamColor.BLACK && myPosition.getRow() == 7;
-
-        // start of game logic
-        if (whiteStart || blackStart) {
-            if (board.getPiece(forwardOne) == null && isNotBlocked(board, forwardOne, currColor, false)) {
-                moves.add(new ChessMove(myPosition, forwardOne, null));
-                if (board.getPiece(forwardTwo) == null && isNotBlocked(board, forwardTwo, currColor, false)) {
-                    moves.add(new ChessMove(myPosition, forwardTwo, null));
-                }
-            }
-        // forward logic
-        } else if (board.getPiece(forwardOne) == null && (forwardOne.getRow() == 8 || forwardOne.getRow() == 1)) {
-            moves.addAll(getPromotions(myPosition, forwardOne));
-        } else if (board.getPiece(forwardOne) == null && isNotBlocked(board, forwardOne, currColor, false)) {
-            moves.add(new ChessMove(myPosition, forwardOne, null));
+    private long getPushes(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        long empty = ~board.occupied();
+        long pawn = Bitboards.bit(square);
+        if (currColor == ChessGame.TeamColor.WHITE) {
+            long single = pawn << 8 & empty;
+            long twice = (single >>> 8 & WHITE_START_ROW) << 16 & empty;
+            return single | twice;
+        } else {
+            long single = pawn >>> 8 & empty;
+            long twice = (single << 8 & BLACK_START_ROW) >>> 16 & empty;
+            return single | twice;
         }
-        // get forward left moves
-        moves.addAll(getDiagonals(board, myPosition, currColor, forwardLeft));
-        // get forward right moves
-        moves.addAll(getDiagonals(board, myPosition, currColor, forwardRight));
-
-        return moves;
     }
 
     /**
-     * Gets the possible promotion moves for a pawn.
+     * Gets the enemy-occupied squares diagonally in front of a pawn.
      *
-     * @param myPosition the current position of the pawn
-     * @param newPosition the new position of the pawn
-     * @return a collection of possible promotion moves
+     * @param board the current state of the chessboard
+     * @param square the square index of the pawn
+     * @param currColor the color of the pawn
+     * @return bitboard of squares the pawn can capture on
      */
-    private Collection<ChessMove> getPromotions(ChessPosition myPosition, ChessPosition newPosition) {
-        return List.of(
-                new ChessMove(myPosition, newPosition, ChessPiece.PieceType.QUEEN),
-                new ChessMove(myPosition, newPosition, ChessPiece.PieceType.BISHOP),
-                new ChessMove(myPosition, newPosition, ChessPiece.PieceType.ROOK),
-                new ChessMove(myPosition, newPosition, ChessPiece.PieceType.KNIGHT)
-        );
+    private long getCaptures(ChessBoard board, int square, ChessGame.TeamColor currColor) {
+        long enemies = board.occupied() & ~board.pieces(currColor);
+        return Bitboards.pawnAttacks(Bitboards.bit(square), currColor) & enemies;
     }
 
     /**
-     * Gets the possible diagonal moves for a pawn.
+     * Adds the four promotion moves for each square a pawn can reach on the last row.
      *
-     * @param board the current state of the chessboard
-     * @param myPosition the current position of the pawn
-     * @param currColor the color of the pawn
-     * @param diagonal the diagonal position to check
-     * @return a collection of possible diagonal moves
+     * @param square the square index of the pawn
+     * @param targets bitboard of squares on the last row the pawn can reach
+     * @param capture whether the pawn captures on those squares
+     * @param moves the list to add the moves to
      */
-    private Collection<ChessMove> getDiagonals(
-            ChessBoard board,
-            ChessPosition myPosition,
-            ChessGame.TeamColor currColor,
-            ChessPosition diagonal
-    ) {
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        // catch out of bounds
-        if (diagonal.getColumn() < 1 || diagonal.getColumn() > 8) {
-            return moves;
-        }
-
-        if (board.getPiece(diagonal) != null && board.getPiece(diagonal).getTeamColor() != currColor) {
-            if (diagonal.getRow() == 1 || diagonal.getRow() == 8) {
-                moves.addAll(getPromotions(myPosition, diagonal));
-            } else {
-                moves.add(new ChessMove(myPosition, diagonal, null));
+    private void addPromotions(int square, long targets, boolean capture, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            for (ChessPiece.PieceType type : PROMOTIONS) {
+                moves.add(PackedMove.promotion(square, to, type, capture));
             }
+            targets &= targets - 1;
         }
-        return moves;
     }
 }
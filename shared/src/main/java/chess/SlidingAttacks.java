@@ -0,0 +1,109 @@
+package chess;
+
+/**
+ * Precomputed attack tables for the sliding pieces.
+ * <p>
+ * For every square the relevant blockers (the rays without their final edge
+ * square) form a mask. The occupancy bits under that mask are packed together
+ * with {@link Long#compress}, the JDK's PEXT, and the packed value indexes
+ * straight into the square's slice of a shared table, so an attack set is a
+ * single lookup. The tables are built once when the class loads.
+ */
+final class SlidingAttacks {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        ROOK_TABLE = buildTable(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildTable(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_OFFSETS);
+    }
+
+    private SlidingAttacks() {
+    }
+
+    /**
+     * @param square the square index of the rook
+     * @param occupied bitboard of every occupied square
+     * @return bitboard of squares a rook attacks, including the first blocker in each direction
+     */
+    static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) Long.compress(occupied, ROOK_MASKS[square])];
+    }
+
+    /**
+     * @param square the square index of the bishop
+     * @param occupied bitboard of every occupied square
+     * @return bitboard of squares a bishop attacks, including the first blocker in each direction
+     */
+    static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) Long.compress(occupied, BISHOP_MASKS[square])];
+    }
+
+    /**
+     * @param square the square index of the queen
+     * @param occupied bitboard of every occupied square
+     * @return bitboard of squares a queen attacks, including the first blocker in each direction
+     */
+    static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Fills in the masks and offsets for each square and builds the attack table they index.
+     *
+     * @param directions row and column increments the piece slides along
+     * @param masks per-square relevant blocker masks to fill in
+     * @param offsets per-square start index into the table to fill in
+     * @return the attack table for every square and blocker arrangement
+     */
+    private static long[] buildTable(int[][] directions, long[] masks, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantBlockers(square, directions);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long blockers = 0L;
+            do {
+                long attacks = 0L;
+                for (int[] direction : directions) {
+                    attacks |= Bitboards.ray(square, blockers, direction[0], direction[1]);
+                }
+                table[offsets[square] + (int) Long.compress(blockers, mask)] = attacks;
+                blockers = (blockers - mask) & mask;
+            } while (blockers != 0);
+        }
+        return table;
+    }
+
+    /**
+     * Gets the squares whose occupancy can change a slider's attacks: every square on
+     * its rays except the last one before the edge, which is attacked either way.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (Bitboards.square(row + direction[0], col + direction[1]) >= 0) {
+                mask |= Bitboards.bit(Bitboards.square(row, col));
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,75 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing: a position's key is the XOR of one key per
+ * (piece, square) pair on the board, a key when black is to move, a key for the
+ * castling rights and a key for the file of any en passant square, so making or
+ * taking back a move only XORs a few keys in and out.
+ * <p>
+ * The keys come from a fixed-seed SplitMix64 generator so that every JVM, client
+ * and server alike, computes the same key for the same position.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x2F6E2B1D5C3A4978L;
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[Castling.ALL + 1];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long state = SEED;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < squares.length; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                squares[square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+        // Having no rights XORs in nothing, like having no en passant square
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING[rights] = mix(state);
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[file] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex the board's index for the piece's color and type
+     * @param square the square index the piece stands on
+     * @return the key for that piece on that square
+     */
+    static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex][square];
+    }
+
+    /**
+     * @param rights the castling rights bits
+     * @return the key for that combination of rights
+     */
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param square the en passant target square index, or -1 for none
+     * @return the key for the square's file, or 0 if there is no en passant square
+     */
+    static long enPassant(int square) {
+        return square < 0 ? 0L : EN_PASSANT_FILE[square & 7];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
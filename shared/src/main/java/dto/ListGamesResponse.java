@@ -1,7 +1,7 @@
 package dto;
 
-import model.GameData;
+import model.GameSummary;
 
 import java.util.Collection;
 
-public record ListGamesResponse(Collection<GameData> games, String message) { }
+public record ListGamesResponse(Collection<GameSummary> games, String message) { }
@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * What a game list shows about a game, without its board
+ *
+ * @param plyCount the number of plies (half-moves) played
+ */
+public record GameSummary(Integer gameID, String whiteUsername, String blackUsername, String gameName,
+                          boolean gameOver, int plyCount) {
+}
@@ -2,7 +2,31 @@ package websocket.commands;
 
 public class ConnectCommand extends UserGameCommand {
 
+    private final boolean binaryFrames;
+    private final boolean moveDeltas;
+
     public ConnectCommand(CommandType type, String authToken, Integer gameID) {
+        this(type, authToken, gameID, false, false);
+    }
+
+    /**
+     * @param binaryFrames true to receive game updates after the first LOAD_GAME as
+     *                     binary {@link websocket.messages.LoadGameFrame}s instead of JSON
+     * @param moveDeltas true to receive a {@link websocket.messages.MoveAppliedMessage}
+     *                   after each move instead of the whole game
+     */
+    public ConnectCommand(CommandType type, String authToken, Integer gameID, boolean binaryFrames,
+                          boolean moveDeltas) {
         super(type, authToken, gameID);
+        this.binaryFrames = binaryFrames;
+        this.moveDeltas = moveDeltas;
+    }
+
+    public boolean binaryFrames() {
+        return binaryFrames;
+    }
+
+    public boolean moveDeltas() {
+        return moveDeltas;
     }
 }
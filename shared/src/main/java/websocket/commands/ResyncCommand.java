@@ -0,0 +1,12 @@
+package websocket.commands;
+
+/**
+ * Asks the server for a full LOAD_GAME, sent by a client whose copy of the game
+ * no longer matches a MOVE_APPLIED message
+ */
+public class ResyncCommand extends UserGameCommand {
+
+    public ResyncCommand(UserGameCommand.CommandType type, String authToken, Integer gameID) {
+        super(type, authToken, gameID);
+    }
+}
@@ -26,7 +26,8 @@ public abstract class UserGameCommand {
         CONNECT,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+        RESYNC
     }
 
     public CommandType getCommandType() {
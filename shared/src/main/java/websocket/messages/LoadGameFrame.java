@@ -0,0 +1,55 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.GameSnapshot;
+import model.GameData;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary websocket frame carrying a LOAD_GAME update: the message type, the game
+ * ID, whether the game is over and a {@link GameSnapshot} of the position, in
+ * {@value #SIZE} bytes. The players and game name are not sent; the receiver keeps
+ * them from the JSON LOAD_GAME it got when it connected.
+ */
+public final class LoadGameFrame {
+
+    public static final int SIZE = 1 + Integer.BYTES + 1 + GameSnapshot.SIZE;
+
+    private LoadGameFrame() {
+    }
+
+    /**
+     * @param game the game to send
+     * @return a buffer holding the frame, ready to be read
+     */
+    public static ByteBuffer encode(GameData game) {
+        ByteBuffer frame = ByteBuffer.allocate(SIZE);
+        frame.put((byte) ServerMessage.ServerMessageType.LOAD_GAME.ordinal());
+        frame.putInt(game.gameID());
+        frame.put((byte) (game.gameOver() ? 1 : 0));
+        GameSnapshot.encode(game.game(), frame);
+        return frame.flip();
+    }
+
+    /**
+     * @param frame a frame written by {@link #encode}
+     * @param known the game as last loaded, for the players and game name
+     * @return the message the frame stands for
+     * @throws IllegalArgumentException if the frame is not a LOAD_GAME frame for the known game
+     */
+    public static LoadGameMessage decode(ByteBuffer frame, GameData known) {
+        if (frame.remaining() != SIZE || frame.get() != ServerMessage.ServerMessageType.LOAD_GAME.ordinal()) {
+            throw new IllegalArgumentException("Not a LOAD_GAME frame");
+        }
+        int gameID = frame.getInt();
+        if (known == null || known.gameID() != gameID) {
+            throw new IllegalArgumentException("LOAD_GAME frame for unknown game " + gameID);
+        }
+        boolean gameOver = frame.get() != 0;
+        ChessGame game = GameSnapshot.decode(frame);
+        GameData data = new GameData(gameID, known.whiteUsername(), known.blackUsername(), known.gameName(), game);
+        data.setGameOver(gameOver);
+        return new LoadGameMessage(data);
+    }
+}
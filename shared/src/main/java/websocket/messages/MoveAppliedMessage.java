@@ -0,0 +1,40 @@
+package websocket.messages;
+
+import chess.ChessMove;
+
+/**
+ * Tells a client which move was just made instead of sending the whole game.
+ * The client plays the move on its own copy and checks the result against the
+ * Zobrist key and sequence number; on a mismatch it sends a RESYNC command to
+ * get a full LOAD_GAME.
+ */
+public class MoveAppliedMessage extends ServerMessage {
+
+    private final ChessMove move;
+    private final long hash;
+    private final int sequence;
+
+    /**
+     * @param move the move that was made
+     * @param hash the game's Zobrist key after the move
+     * @param sequence the game's ply count after the move
+     */
+    public MoveAppliedMessage(ChessMove move, long hash, int sequence) {
+        super(ServerMessageType.MOVE_APPLIED);
+        this.move = move;
+        this.hash = hash;
+        this.sequence = sequence;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+}
@@ -16,7 +16,8 @@ public abstract class ServerMessage {
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
-        NOTIFICATION
+        NOTIFICATION,
+        MOVE_APPLIED
     }
 
     public ServerMessage(ServerMessageType type) {
@@ -0,0 +1,107 @@
+package chess;
+
+import com.google.gson.Gson;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("Standard positions print back to the FEN they were read from")
+    public void roundTrip() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            Assertions.assertEquals(position.fen(), ChessGame.fromFen(position.fen()).toFen());
+        }
+        Assertions.assertEquals(Perft.START_FEN, new ChessGame().toFen());
+    }
+
+    @Test
+    @DisplayName("Moves update en passant and the move counters")
+    public void countersFollowMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 4), ChessPosition.of(5, 4), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(3, 6), ChessPosition.of(5, 5), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(7, 6), ChessPosition.of(5, 6), null));
+
+        Assertions.assertEquals("rnbqkbnr/ppp1p1pp/8/3pNp2/8/8/PPPPPPPP/RNBQKB1R w KQkq - 0 3", game.toFen());
+        Assertions.assertEquals(4, game.getPly());
+
+        game.unmakeMove();
+        Assertions.assertEquals("rnbqkbnr/ppp1pppp/8/3pN3/8/8/PPPPPPPP/RNBQKB1R b KQkq - 1 2", game.toFen());
+        Assertions.assertEquals(3, game.getPly());
+    }
+
+    @Test
+    @DisplayName("A parsed en passant square no pawn can capture onto matches the played position")
+    public void parsedEnPassantMatchesPlayed() throws InvalidMoveException {
+        ChessGame played = new ChessGame();
+        played.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        ChessGame parsed = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+
+        Assertions.assertEquals(played, parsed);
+        Assertions.assertEquals(played.getZobristKey(), parsed.getZobristKey());
+        Assertions.assertEquals(played.toFen(), parsed.toFen());
+
+        for (ChessGame game : new ChessGame[]{played, parsed}) {
+            game.makeMove(ChessMove.of(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+            game.makeMove(ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+            game.makeMove(ChessMove.of(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null));
+            game.makeMove(ChessMove.of(ChessPosition.of(3, 6), ChessPosition.of(1, 7), null));
+            Assertions.assertEquals(1, game.getRepetitionCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Board reads a placement or a whole FEN")
+    public void boardFen() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(board, ChessBoard.fromFen(board.toFen()));
+        Assertions.assertEquals(board, ChessBoard.fromFen(Perft.START_FEN));
+    }
+
+    @Test
+    @DisplayName("Gson writes a game as a FEN string")
+    public void gsonRoundTrip() {
+        Gson gson = new Gson();
+        ChessGame game = ChessGame.fromFen(Perft.STANDARD_POSITIONS.get(1).fen());
+        GameData data = new GameData(1, "white", "black", "game", game);
+
+        String json = gson.toJson(data);
+        GameData read = gson.fromJson(json, GameData.class);
+
+        Assertions.assertTrue(json.contains("\"game\":\"" + game.toFen() + "\""), json);
+        Assertions.assertEquals(game, read.game());
+        Assertions.assertEquals(game.getZobristKey(), read.game().getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Games stored as board fields still load")
+    public void gsonReadsLegacyGames() {
+        StringBuilder squares = new StringBuilder("[");
+        for (int row = 1; row <= 8; row++) {
+            squares.append(row > 1 ? ",[" : "[");
+            for (int col = 1; col <= 8; col++) {
+                squares.append(col > 1 ? "," : "");
+                if (row == 1 && col == 5) {
+                    squares.append("{\"pieceColor\":\"WHITE\",\"pieceType\":\"KING\"}");
+                } else if (row == 8 && col == 5) {
+                    squares.append("{\"pieceColor\":\"BLACK\",\"pieceType\":\"KING\"}");
+                } else if (row == 2 && col == 1) {
+                    squares.append("{\"pieceColor\":\"WHITE\",\"pieceType\":\"PAWN\"}");
+                } else {
+                    squares.append("null");
+                }
+            }
+            squares.append("]");
+        }
+        squares.append("]");
+        String legacy = "{\"turn\":\"BLACK\",\"board\":{\"squares\":" + squares + "}}";
+
+        ChessGame game = new Gson().fromJson(legacy, ChessGame.class);
+
+        Assertions.assertEquals("4k3/8/8/8/8/8/P7/4K3 b - - 0 1", game.toFen());
+    }
+}
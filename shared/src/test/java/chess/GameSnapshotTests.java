@@ -0,0 +1,56 @@
+package chess;
+
+import model.GameData;
+import org.junit.jupiter.api.*;
+import websocket.messages.LoadGameFrame;
+import websocket.messages.LoadGameMessage;
+
+import java.nio.ByteBuffer;
+
+public class GameSnapshotTests {
+
+    @Test
+    @DisplayName("Snapshots decode to the position they were taken from")
+    public void roundTrip() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+
+            ChessGame decoded = GameSnapshot.fromBytes(GameSnapshot.toBytes(game));
+
+            Assertions.assertEquals(position.fen(), decoded.toFen());
+            Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots keep the en passant square and are a fixed size")
+    public void enPassantAndSize() {
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.SIZE * 2);
+
+        GameSnapshot.encode(game, buffer);
+        GameSnapshot.encode(new ChessGame(), buffer);
+        buffer.flip();
+
+        Assertions.assertEquals(GameSnapshot.SIZE * 2, buffer.remaining());
+        Assertions.assertEquals(game.toFen(), GameSnapshot.decode(buffer).toFen());
+        Assertions.assertEquals(new ChessGame(), GameSnapshot.decode(buffer));
+    }
+
+    @Test
+    @DisplayName("LOAD_GAME frames carry the position and game over flag")
+    public void loadGameFrame() {
+        GameData known = new GameData(7, "white", "black", "game", new ChessGame());
+        ChessGame moved = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        GameData update = new GameData(7, "white", "black", "game", moved);
+        update.setGameOver(true);
+
+        ByteBuffer frame = LoadGameFrame.encode(update);
+        LoadGameMessage message = LoadGameFrame.decode(frame, known);
+
+        Assertions.assertEquals(LoadGameFrame.SIZE, frame.limit());
+        Assertions.assertEquals(moved, message.getGame().game());
+        Assertions.assertEquals("black", message.getGame().blackUsername());
+        Assertions.assertTrue(message.getGame().gameOver());
+    }
+}
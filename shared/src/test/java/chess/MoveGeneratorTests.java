@@ -0,0 +1,134 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class MoveGeneratorTests {
+
+    @Test
+    @DisplayName("Pinned piece only moves along the pin")
+    public void pinnedPiece() {
+        ChessGame game = Fen.parse("4k3/8/8/8/4r3/8/4R3/4K3 w - - 0 1");
+
+        Collection<ChessMove> moves = game.validMoves(new ChessPosition(2, 5));
+
+        Assertions.assertEquals(Set.of(
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), null),
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)
+        ), new HashSet<>(moves));
+    }
+
+    @Test
+    @DisplayName("Promoting to a king or pawn is an invalid move")
+    public void illegalPromotionPiece() {
+        ChessGame game = Fen.parse("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+
+        for (ChessPiece.PieceType type : new ChessPiece.PieceType[]{ChessPiece.PieceType.KING,
+                ChessPiece.PieceType.PAWN}) {
+            ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), type);
+            Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(move));
+        }
+    }
+
+    @Test
+    @DisplayName("Moving off the board is an invalid move")
+    public void offBoardEnd() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K2R w - - 0 1");
+        ChessMove move = new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 9), null);
+
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(move));
+    }
+
+    @Test
+    @DisplayName("Only the king moves out of double check")
+    public void doubleCheck() {
+        ChessGame game = Fen.parse("4k3/8/8/8/1b2r3/8/3Q4/4K3 w - - 0 1");
+
+        Assertions.assertTrue(game.validMoves(new ChessPosition(2, 4)).isEmpty());
+        Assertions.assertFalse(game.validMoves(new ChessPosition(1, 5)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("King cannot retreat along the checking line")
+    public void kingRetreatsOffLine() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+
+        Assertions.assertFalse(game.validMoves(new ChessPosition(1, 5))
+                .contains(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 6), null)));
+    }
+
+    @Test
+    @DisplayName("No legal move when mated or stalemated")
+    public void noLegalMove() {
+        ChessGame mated = Fen.parse("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        ChessGame stalemated = Fen.parse("7k/8/6Q1/8/8/8/8/K7 b - - 0 1");
+
+        Assertions.assertFalse(mated.hasLegalMove(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(mated.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(stalemated.hasLegalMove(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(stalemated.isInStalemate(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(stalemated.hasLegalMove(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Generator agrees with playing each move and testing for check")
+    public void matchesMakeAndTest() {
+        Random random = new Random(240);
+        for (int game = 0; game < 20; game++) {
+            ChessGame chessGame = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                    Set<ChessMove> legal = makeAndTest(chessGame, color);
+                    Assertions.assertEquals(legal, generated(chessGame, color));
+                    Assertions.assertEquals(!legal.isEmpty(), chessGame.hasLegalMove(color));
+                }
+                MoveList moves = new MoveList();
+                chessGame.legalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                chessGame.applyMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    private static Set<ChessMove> generated(ChessGame game, ChessGame.TeamColor color) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(game.getBoard(), color, game.getBoard().pieces(color), game.getCastlingRights(),
+                enPassantFor(game, color), moves);
+        return new HashSet<>(moves.toChessMoves());
+    }
+
+    private static Set<ChessMove> makeAndTest(ChessGame game, ChessGame.TeamColor color) {
+        ChessBoard board = game.getBoard();
+        MoveList candidates = new MoveList();
+        for (long pieces = board.pieces(color); pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            ChessPiece piece = board.getPiece(square);
+            piece.generateMoves(board, square, candidates);
+            if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                KingMovesCalculator.INSTANCE.generateCastles(board, square, color, game.getCastlingRights(), candidates);
+            } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                PawnMovesCalculator.INSTANCE.generateEnPassant(square, color, enPassantFor(game, color), candidates);
+            }
+        }
+
+        Set<ChessMove> legal = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            game.applyMove(candidates.get(i));
+            if (!game.isInCheck(color)) {
+                legal.add(PackedMove.toChessMove(candidates.get(i)));
+            }
+            game.unmakeMove();
+        }
+        return legal;
+    }
+
+    private static int enPassantFor(ChessGame game, ChessGame.TeamColor color) {
+        return color == game.getTeamTurn() ? game.getEnPassantSquare() : -1;
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+public class PackedMoveTests {
+
+    @Test
+    @DisplayName("Squares and flags survive encoding")
+    public void roundTrip() {
+        int move = PackedMove.promotion(52, 63, ChessPiece.PieceType.ROOK, true);
+
+        Assertions.assertEquals(52, PackedMove.from(move));
+        Assertions.assertEquals(63, PackedMove.to(move));
+        Assertions.assertTrue(PackedMove.isCapture(move));
+        Assertions.assertTrue(PackedMove.isPromotion(move));
+        Assertions.assertEquals(ChessPiece.PieceType.ROOK, PackedMove.promotionPiece(move));
+        Assertions.assertEquals(0, move >>> 16, "Move does not fit in 16 bits");
+    }
+
+    @Test
+    @DisplayName("Encoding a ChessMove reads capture and double push flags from the board")
+    public void encodeChessMove() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4P3/3qK3 w - - 0 1");
+        ChessBoard board = game.getBoard();
+
+        int push = PackedMove.of(board, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        int capture = PackedMove.of(board, new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 4), null));
+
+        Assertions.assertEquals(PackedMove.DOUBLE_PAWN_PUSH, PackedMove.flags(push));
+        Assertions.assertEquals(PackedMove.CAPTURE, PackedMove.flags(capture));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null),
+                PackedMove.toChessMove(push));
+    }
+
+    @Test
+    @DisplayName("Move lists grow and can be reused")
+    public void moveListReuse() {
+        MoveList moves = new MoveList(1);
+        for (int i = 0; i < 100; i++) {
+            moves.add(PackedMove.of(i % 64, (i + 1) % 64, PackedMove.QUIET));
+        }
+        Assertions.assertEquals(100, moves.size());
+        Assertions.assertTrue(moves.contains(PackedMove.of(99 % 64, 100 % 64, PackedMove.QUIET)));
+
+        moves.clear();
+        new ChessGame().legalMoves(moves);
+        Assertions.assertEquals(20, moves.size());
+        Assertions.assertEquals(20, moves.toChessMoves().size());
+    }
+
+    @Test
+    @DisplayName("Decoded moves, positions and pieces are shared instances")
+    public void sharedInstances() {
+        int move = PackedMove.promotion(52, 60, ChessPiece.PieceType.QUEEN, false);
+
+        Assertions.assertSame(PackedMove.toChessMove(move), PackedMove.toChessMove(move));
+        Assertions.assertSame(ChessPosition.of(8, 5), PackedMove.toChessMove(move).getEndPosition());
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                new ChessGame().getBoard().getPiece(ChessPosition.of(1, 1)));
+        Assertions.assertEquals(new ChessPosition(9, 1), ChessPosition.of(9, 1));
+    }
+}
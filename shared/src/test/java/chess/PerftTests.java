@@ -0,0 +1,50 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+public class PerftTests {
+
+    private static final long MAX_NODES = 250_000;
+
+    @Test
+    @DisplayName("Standard positions match published node counts")
+    public void standardPositions() {
+        for (Perft.Position position : Perft.STANDARD_POSITIONS) {
+            for (int depth = 1; depth <= position.maxDepth() && position.expected(depth) <= MAX_NODES; depth++) {
+                Assertions.assertEquals(position.expected(depth), Perft.perft(position.game(), depth),
+                        String.format("Wrong node count for %s at depth %d", position.name(), depth));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Perft leaves the game unchanged")
+    public void perftRestoresGame() {
+        ChessGame game = new ChessGame();
+        long key = game.getZobristKey();
+
+        Perft.perft(game, 3);
+
+        Assertions.assertEquals(new ChessGame(), game);
+        Assertions.assertEquals(key, game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Divide sums to the perft count")
+    public void divideSumsToPerft() {
+        ChessGame game = Fen.parse(Perft.STANDARD_POSITIONS.get(1).fen());
+
+        long total = Perft.divide(game, 3).values().stream().mapToLong(Long::longValue).sum();
+
+        Assertions.assertEquals(Perft.perft(game, 3), total);
+    }
+
+    @Test
+    @DisplayName("Divide rejects a depth below 1")
+    public void divideRejectsShallowDepth() {
+        ChessGame game = new ChessGame();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Perft.divide(game, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Perft.divide(game, -1));
+    }
+}